@@ -0,0 +1,26 @@
+package com.boldyrev.library.bulk;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Итог массовой загрузки каталога. Записи - строки CSV или объекты NDJSON входного файла
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class BulkLoadResult {
+
+    private final long records;
+
+    private final long rejectedRecords;
+
+    private final int insertedAuthors;
+
+    private final int updatedAuthors;
+
+    private final int insertedBooks;
+
+    private final int updatedBooks;
+}
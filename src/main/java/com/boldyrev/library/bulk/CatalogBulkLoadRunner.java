@@ -0,0 +1,50 @@
+package com.boldyrev.library.bulk;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Загружает каталог из файла library.bulk-load.file при запуске приложения. Формат определяется
+ * по расширению файла (.csv, .ndjson, .jsonl), если не задан свойством library.bulk-load.format
+ */
+@Component
+@ConditionalOnProperty(name = "library.bulk-load.file")
+@Slf4j
+public class CatalogBulkLoadRunner implements ApplicationRunner {
+
+    private final CatalogBulkLoader loader;
+    private final Path file;
+    private final CatalogFormat format;
+
+    @Autowired
+    public CatalogBulkLoadRunner(CatalogBulkLoader loader,
+        @Value("${library.bulk-load.file}") String file,
+        @Value("${library.bulk-load.format:}") String format) {
+        this.loader = loader;
+        this.file = Path.of(file);
+        this.format = format.isBlank()
+            ? CatalogFormat.ofFileName(file)
+            : CatalogFormat.valueOf(format.toUpperCase(Locale.ROOT));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        log.info("Loading catalog from {} ({})", file, format);
+
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            BulkLoadResult result = loader.load(reader, format);
+            log.info("Catalog loaded: {}", result);
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package com.boldyrev.library.bulk;
+
+import com.boldyrev.library.events.CatalogReloadedEvent;
+import com.boldyrev.library.models.Book;
+import com.boldyrev.library.util.isbn.ISBNs;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Массовая загрузка каталога для первичного наполнения и полной перезагрузки. Файл читается
+ * по записям и передается в PostgreSQL через COPY FROM STDIN во временную таблицу, после чего
+ * авторы, книги и их связи сливаются в t_authors, t_books и t_authors_books несколькими
+ * запросами над всем набором сразу. В памяти находится только текущая запись и буфер COPY,
+ * поэтому размер файла не ограничен.
+ *
+ * <p>Авторы сопоставляются по имени и дате рождения, книги - по ISBN, приведенному и
+ * проверенному так же, как при сохранении через API. Найденные записи обновляются, а авторы
+ * загруженных книг заменяются авторами из файла. ID новых записей выделяются блоками из
+ * последовательностей так же, как это делает Hibernate (pooled-lo). Некорректные записи
+ * пропускаются и учитываются в результате. Загрузка выполняется в одной транзакции, после
+ * коммита кэши очищаются, а индексы поиска перестраиваются
+ */
+@Component
+@Slf4j
+public class CatalogBulkLoader {
+
+    private static final List<String> CSV_COLUMNS = List.of("title", "isbn", "num_pages",
+        "publication_date", "author_name", "author_birth_date", "author_country");
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_LOGGED_REJECTS = 100;
+    private static final int MAX_COUNTRY_LENGTH = 100;
+
+    private static final String CREATE_STAGING_SQL = """
+        CREATE TEMPORARY TABLE catalog_staging
+        (
+            title             text    NOT NULL,
+            isbn              text    NOT NULL,
+            num_pages         integer NOT NULL,
+            publication_date  date    NOT NULL,
+            author_name       text,
+            author_birth_date date,
+            author_country    text
+        ) ON COMMIT DROP
+        """;
+
+    private static final String COPY_SQL = "COPY catalog_staging FROM STDIN (FORMAT csv)";
+
+    private static final String UPDATE_AUTHORS_SQL = """
+        UPDATE t_authors a
+        SET country = s.author_country,
+            version = a.version + 1
+        FROM (SELECT DISTINCT ON (author_name, author_birth_date)
+                  author_name, author_birth_date, author_country
+              FROM catalog_staging
+              WHERE author_name IS NOT NULL
+              ORDER BY author_name, author_birth_date) s
+        WHERE a.name = s.author_name
+            AND a.birth_date = s.author_birth_date
+            AND a.country <> s.author_country
+        """;
+
+    /**
+     * Новым авторам выдаются ID из блоков [nextval, nextval + :step)
+     */
+    private static final String INSERT_AUTHORS_SQL = """
+        WITH new_authors AS (
+            SELECT DISTINCT ON (author_name, author_birth_date)
+                author_name, author_birth_date, author_country
+            FROM catalog_staging s
+            WHERE author_name IS NOT NULL
+                AND NOT EXISTS(
+                    SELECT 1
+                    FROM t_authors a
+                    WHERE a.name = s.author_name
+                        AND a.birth_date = s.author_birth_date)
+            ORDER BY author_name, author_birth_date
+        ), numbered AS (
+            SELECT new_authors.*, row_number() OVER () - 1 AS n
+            FROM new_authors
+        ), blocks AS (
+            SELECT block, nextval(pg_get_serial_sequence('t_authors', 'author_id')) AS start
+            FROM generate_series(1, (SELECT (count(*) + :step - 1) / :step FROM numbered)) block
+        )
+        INSERT INTO t_authors (author_id, name, birth_date, country)
+        SELECT blocks.start + numbered.n % :step, author_name, author_birth_date, author_country
+        FROM numbered
+        JOIN blocks ON blocks.block = numbered.n / :step + 1
+        """;
+
+    private static final String UPDATE_BOOKS_SQL = """
+        UPDATE t_books b
+        SET title = s.title,
+            num_pages = s.num_pages,
+            publication_date = s.publication_date,
+            version = b.version + 1
+        FROM (SELECT DISTINCT ON (isbn) isbn, title, num_pages, publication_date
+              FROM catalog_staging
+              ORDER BY isbn) s
+        WHERE b.isbn = s.isbn
+            AND (b.title, b.num_pages, b.publication_date)
+                IS DISTINCT FROM (s.title, s.num_pages, s.publication_date)
+        """;
+
+    /**
+     * Новым книгам выдаются ID из блоков [nextval, nextval + :step)
+     */
+    private static final String INSERT_BOOKS_SQL = """
+        WITH new_books AS (
+            SELECT DISTINCT ON (isbn) title, isbn, num_pages, publication_date
+            FROM catalog_staging s
+            WHERE NOT EXISTS(
+                SELECT 1
+                FROM t_books b
+                WHERE b.isbn = s.isbn)
+            ORDER BY isbn
+        ), numbered AS (
+            SELECT new_books.*, row_number() OVER () - 1 AS n
+            FROM new_books
+        ), blocks AS (
+            SELECT block, nextval(pg_get_serial_sequence('t_books', 'book_id')) AS start
+            FROM generate_series(1, (SELECT (count(*) + :step - 1) / :step FROM numbered)) block
+        )
+        INSERT INTO t_books (book_id, title, isbn, num_pages, publication_date)
+        SELECT blocks.start + numbered.n % :step, title, isbn, num_pages, publication_date
+        FROM numbered
+        JOIN blocks ON blocks.block = numbered.n / :step + 1
+        """;
+
+    /**
+     * Если в t_authors уже есть одноименные авторы с одной датой рождения, книга связывается с
+     * первым из них
+     */
+    private static final String CREATE_STAGING_LINKS_SQL = """
+        CREATE TEMPORARY TABLE catalog_staging_links ON COMMIT DROP AS
+        SELECT DISTINCT a.author_id, b.book_id
+        FROM catalog_staging s
+        JOIN t_books b ON b.isbn = s.isbn
+        JOIN (SELECT name, birth_date, min(author_id) AS author_id
+              FROM t_authors
+              GROUP BY name, birth_date) a
+            ON a.name = s.author_name AND a.birth_date = s.author_birth_date
+        """;
+
+    private static final String DELETE_STALE_LINKS_SQL = """
+        DELETE FROM t_authors_books ab
+        USING t_books b
+        WHERE ab.book_id = b.book_id
+            AND b.isbn IN (SELECT isbn FROM catalog_staging)
+            AND NOT EXISTS(
+                SELECT 1
+                FROM catalog_staging_links l
+                WHERE l.author_id = ab.author_id
+                    AND l.book_id = ab.book_id)
+        """;
+
+    private static final String INSERT_LINKS_SQL = """
+        INSERT INTO t_authors_books (author_id, book_id)
+        SELECT author_id, book_id
+        FROM catalog_staging_links
+        ON CONFLICT DO NOTHING
+        """;
+
+    private final DataSource dataSource;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public CatalogBulkLoader(DataSource dataSource, NamedParameterJdbcTemplate jdbcTemplate,
+        ObjectMapper objectMapper, Validator validator, ApplicationEventPublisher eventPublisher,
+        PlatformTransactionManager transactionManager) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Загружает каталог. Reader не закрывается
+     */
+    public BulkLoadResult load(Reader input, CatalogFormat format) {
+        return transactionTemplate.execute(status -> {
+            JdbcOperations jdbc = jdbcTemplate.getJdbcOperations();
+
+            jdbc.execute(CREATE_STAGING_SQL);
+            long[] records = copyToStaging(input, format);
+            jdbc.execute("ANALYZE catalog_staging");
+
+            int updatedAuthors = jdbc.update(UPDATE_AUTHORS_SQL);
+            int insertedAuthors = jdbcTemplate.update(INSERT_AUTHORS_SQL,
+                Map.of("step", sequenceStep("t_authors", "author_id")));
+            int updatedBooks = jdbc.update(UPDATE_BOOKS_SQL);
+            int insertedBooks = jdbcTemplate.update(INSERT_BOOKS_SQL,
+                Map.of("step", sequenceStep("t_books", "book_id")));
+
+            jdbc.execute(CREATE_STAGING_LINKS_SQL);
+            jdbc.update(DELETE_STALE_LINKS_SQL);
+            jdbc.update(INSERT_LINKS_SQL);
+
+            eventPublisher.publishEvent(new CatalogReloadedEvent());
+
+            return new BulkLoadResult(records[0], records[1], insertedAuthors, updatedAuthors,
+                insertedBooks, updatedBooks);
+        });
+    }
+
+    /**
+     * Передает записи во временную таблицу через COPY на соединении текущей транзакции
+     *
+     * @return количество прочитанных и отклоненных записей
+     */
+    private long[] copyToStaging(Reader input, CatalogFormat format) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        LineNumberReader reader = new LineNumberReader(input);
+        long records = 0;
+        long rejected = 0;
+
+        try (Writer copy = new OutputStreamWriter(
+            new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY_SQL,
+                COPY_BUFFER_SIZE), StandardCharsets.UTF_8)) {
+
+            int[] columns = format == CatalogFormat.CSV ? readCsvHeader(reader) : null;
+
+            while (true) {
+                long lineNumber = reader.getLineNumber() + 1;
+                String record = format == CatalogFormat.CSV
+                    ? readCsvRecord(reader) : reader.readLine();
+                if (record == null) {
+                    break;
+                }
+                if (record.isBlank()) {
+                    continue;
+                }
+
+                records++;
+                try {
+                    List<String[]> rows = format == CatalogFormat.CSV
+                        ? List.<String[]>of(parseCsvRecord(record, columns))
+                        : parseJsonRecord(record);
+                    for (String[] row : rows) {
+                        CsvRows.write(copy, row);
+                    }
+                } catch (InvalidRecordException e) {
+                    rejected++;
+                    if (rejected <= MAX_LOGGED_REJECTS) {
+                        log.warn("Catalog line {} rejected: {}", lineNumber, e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Can't copy catalog into staging table", e);
+        }
+
+        log.debug("Catalog copied into staging table: {} records, {} rejected", records,
+            rejected);
+        return new long[]{records, rejected};
+    }
+
+    private long sequenceStep(String table, String column) {
+        return jdbcTemplate.getJdbcOperations().queryForObject("""
+            SELECT seqincrement
+            FROM pg_sequence
+            WHERE seqrelid = pg_get_serial_sequence(?, ?)::regclass
+            """, Long.class, table, column);
+    }
+
+    /**
+     * @return позиции колонок в порядке {@link #CSV_COLUMNS}, -1 для отсутствующих колонок автора
+     */
+    private int[] readCsvHeader(BufferedReader reader) throws IOException {
+        String header = readCsvRecord(reader);
+        if (header == null) {
+            return new int[0];
+        }
+
+        List<String> names = parseCsvFields(header).stream()
+            .map(name -> name == null ? "" : name.strip().toLowerCase(Locale.ROOT))
+            .toList();
+
+        int[] columns = new int[CSV_COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = names.indexOf(CSV_COLUMNS.get(i));
+            if (columns[i] < 0 && !CSV_COLUMNS.get(i).startsWith("author_")) {
+                throw new IllegalArgumentException(
+                    String.format("Catalog CSV header has no column %s", CSV_COLUMNS.get(i)));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Читает запись CSV: строку файла и, пока поле в кавычках не закрыто, следующие строки.
+     * Переводы строк внутри поля сохраняются как \n
+     *
+     * @return запись или null в конце файла
+     */
+    private static String readCsvRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+
+        StringBuilder record = new StringBuilder(line);
+        long quotes = line.chars().filter(c -> c == '"').count();
+        while (quotes % 2 != 0 && (line = reader.readLine()) != null) {
+            record.append('\n').append(line);
+            quotes += line.chars().filter(c -> c == '"').count();
+        }
+        return record.toString();
+    }
+
+    private String[] parseCsvRecord(String record, int[] columns) {
+        List<String> fields = parseCsvFields(record);
+        String[] values = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = columns[i] >= 0 && columns[i] < fields.size()
+                ? fields.get(columns[i]) : null;
+        }
+        return toStagingRow(values);
+    }
+
+    /**
+     * Разбирает запись CSV (RFC 4180). Пустые поля - null
+     */
+    private static List<String> parseCsvFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append(c);
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.isEmpty() && !wasQuoted ? null : field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (quoted) {
+            throw new InvalidRecordException("unterminated quoted field");
+        }
+        fields.add(field.isEmpty() && !wasQuoted ? null : field.toString());
+        return fields;
+    }
+
+    /**
+     * Книга без авторов дает одну строку с пустыми полями автора, иначе по строке на автора
+     */
+    private List<String[]> parseJsonRecord(String line) {
+        JsonNode book;
+        try {
+            book = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new InvalidRecordException("malformed JSON");
+        }
+
+        String[] bookValues = {text(book, "title"), text(book, "isbn"), text(book, "num_pages"),
+            text(book, "publication_date")};
+
+        List<String[]> rows = new ArrayList<>();
+        for (JsonNode author : book.path("authors")) {
+            String[] values = Arrays.copyOf(bookValues, CSV_COLUMNS.size());
+            values[4] = text(author, "name");
+            values[5] = text(author, "birth_date");
+            values[6] = text(author, "country");
+            rows.add(toStagingRow(values));
+        }
+        if (rows.isEmpty()) {
+            rows.add(toStagingRow(Arrays.copyOf(bookValues, CSV_COLUMNS.size())));
+        }
+        return rows;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.path(field);
+        return value.isValueNode() && !value.isNull() ? value.asText() : null;
+    }
+
+    /**
+     * Проверяет и приводит значения в порядке {@link #CSV_COLUMNS} к виду столбцов t_books и
+     * t_authors. ISBN проверяется ограничениями поля ISBN книги
+     */
+    private String[] toStagingRow(String[] values) {
+        String[] row = values.clone();
+
+        if (isBlank(row[0])) {
+            throw new InvalidRecordException("title is blank");
+        }
+
+        row[1] = row[1] == null ? "" : ISBNs.enrich(row[1]);
+        if (!validator.validateValue(Book.class, "ISBN", row[1]).isEmpty()) {
+            throw new InvalidRecordException("isbn is not a valid ISBN");
+        }
+
+        try {
+            int numPages = Integer.parseInt(String.valueOf(row[2]).strip());
+            if (numPages < 1) {
+                throw new InvalidRecordException("num_pages must be positive");
+            }
+            row[2] = String.valueOf(numPages);
+        } catch (NumberFormatException e) {
+            throw new InvalidRecordException("num_pages is not a number");
+        }
+
+        row[3] = parseDate(row[3], "publication_date");
+
+        if (row[4] == null && row[5] == null && row[6] == null) {
+            return row;
+        }
+        if (isBlank(row[4]) || isBlank(row[6])) {
+            throw new InvalidRecordException("author name and country must not be blank");
+        }
+        if (row[6].length() > MAX_COUNTRY_LENGTH) {
+            throw new InvalidRecordException("author country is too long");
+        }
+        row[5] = parseDate(row[5], "author_birth_date");
+
+        return row;
+    }
+
+    private static String parseDate(String value, String column) {
+        try {
+            return LocalDate.parse(String.valueOf(value).strip()).toString();
+        } catch (DateTimeException e) {
+            throw new InvalidRecordException(column + " is not an ISO date");
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static class InvalidRecordException extends RuntimeException {
+
+        InvalidRecordException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.boldyrev.library.bulk;
+
+import com.boldyrev.library.models.Author;
+import com.boldyrev.library.models.Book;
+import com.boldyrev.library.repositories.BooksRepository;
+import com.boldyrev.library.util.mappers.BookMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Выгрузка всего каталога в форматах массовой загрузки, дополненных ID книг и авторов, поэтому
+ * выгруженный файл можно загрузить обратно через {@link CatalogBulkLoader}.
+ *
+ * <p>Книги читаются через курсор базы данных в одной транзакции только для чтения. Авторы
+ * загружаются одним запросом на порцию книг, после записи порции контекст персистентности
+ * очищается, а кэш второго уровня не используется. Поэтому в памяти находится не больше одной
+ * порции книг независимо от размера каталога
+ */
+@Component
+@Slf4j
+public class CatalogExporter {
+
+    private static final String[] CSV_HEADER = {"id", "title", "isbn", "num_pages",
+        "publication_date", "author_id", "author_name", "author_birth_date", "author_country"};
+
+    private final BooksRepository booksRepository;
+    private final BookMapper bookMapper;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public CatalogExporter(BooksRepository booksRepository, BookMapper bookMapper,
+        ObjectMapper objectMapper, EntityManager entityManager,
+        PlatformTransactionManager transactionManager) {
+        this.booksRepository = booksRepository;
+        this.bookMapper = bookMapper;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Выгружает каталог. OutputStream не закрывается
+     *
+     * @return количество выгруженных книг
+     */
+    public long export(OutputStream output, CatalogFormat format) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+        long exported = transactionTemplate.execute(status -> {
+            entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+            long books = 0;
+
+            try (Stream<Book> stream = booksRepository.streamAllBy()) {
+                if (format == CatalogFormat.CSV) {
+                    CsvRows.write(writer, CSV_HEADER);
+                }
+
+                List<Book> chunk = new ArrayList<>(BooksRepository.STREAM_FETCH_SIZE);
+                Iterator<Book> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                    if (chunk.size() == BooksRepository.STREAM_FETCH_SIZE) {
+                        books += writeChunk(writer, chunk, format);
+                    }
+                }
+                books += writeChunk(writer, chunk, format);
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return books;
+        });
+
+        log.debug("Catalog exported: {} books", exported);
+        return exported;
+    }
+
+    /**
+     * Загружает авторов порции книг одним запросом (книги уже находятся в контексте
+     * персистентности, поэтому у них инициализируются коллекции авторов), записывает порцию и
+     * очищает ее вместе с контекстом персистентности. Вызывается до чтения следующей строки
+     * курсора, иначе прочитанная книга была бы отсоединена
+     *
+     * @return количество записанных книг
+     */
+    private int writeChunk(Writer writer, List<Book> chunk, CatalogFormat format)
+        throws IOException {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        booksRepository.findAllWithAuthorsByIdIn(chunk.stream().map(Book::getId).toList());
+
+        for (Book book : chunk) {
+            if (format == CatalogFormat.CSV) {
+                writeCsv(writer, book);
+            } else {
+                writer.write(objectMapper.writeValueAsString(bookMapper.bookToBookDTO(book)));
+                writer.write('\n');
+            }
+        }
+
+        int written = chunk.size();
+        chunk.clear();
+        entityManager.clear();
+        return written;
+    }
+
+    private static void writeCsv(Writer writer, Book book) throws IOException {
+        String[] bookValues = {book.getId().toString(), book.getTitle(), book.getISBN(),
+            book.getNumPages().toString(), book.getPublicationDate().toString()};
+
+        if (book.getAuthors().isEmpty()) {
+            CsvRows.write(writer, row(bookValues, null, null, null, null));
+        }
+        for (Author author : book.getAuthors()) {
+            CsvRows.write(writer, row(bookValues, author.getId().toString(), author.getName(),
+                author.getBirthDate().toString(), author.getCountry()));
+        }
+    }
+
+    private static String[] row(String[] bookValues, String... authorValues) {
+        String[] row = new String[bookValues.length + authorValues.length];
+        System.arraycopy(bookValues, 0, row, 0, bookValues.length);
+        System.arraycopy(authorValues, 0, row, bookValues.length, authorValues.length);
+        return row;
+    }
+}
@@ -0,0 +1,34 @@
+package com.boldyrev.library.bulk;
+
+import java.util.Locale;
+
+/**
+ * Форматы файла каталога для массовой загрузки и выгрузки
+ */
+public enum CatalogFormat {
+
+    /**
+     * Строка с заголовком title,isbn,num_pages,publication_date,author_name,author_birth_date,
+     * author_country, далее по строке на каждую пару книга-автор. Книга без авторов занимает одну
+     * строку с пустыми полями автора. Поля в кавычках не могут содержать перевод строки
+     */
+    CSV,
+
+    /**
+     * По JSON-объекту книги на строку, поля как в API, авторы задаются именем, датой рождения и
+     * страной
+     */
+    NDJSON;
+
+    public static CatalogFormat ofFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException(
+            String.format("Can't detect catalog format of file %s", fileName));
+    }
+}
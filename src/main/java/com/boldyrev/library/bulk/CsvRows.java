@@ -0,0 +1,31 @@
+package com.boldyrev.library.bulk;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Запись строк CSV для COPY и выгрузки каталога
+ */
+final class CsvRows {
+
+    private CsvRows() {
+    }
+
+    /**
+     * Записывает строку CSV (RFC 4180). null записывается пустым полем без кавычек, что COPY в
+     * формате csv читает как NULL
+     */
+    static void write(Writer writer, String[] row) throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (row[i] != null) {
+                writer.write('"');
+                writer.write(row[i].replace("\"", "\"\""));
+                writer.write('"');
+            }
+        }
+        writer.write('\n');
+    }
+}
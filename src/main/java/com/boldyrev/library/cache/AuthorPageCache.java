@@ -0,0 +1,86 @@
+package com.boldyrev.library.cache;
+
+import com.boldyrev.library.dto.AuthorView;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Кэш первых страниц списка авторов: ID и версии авторов страницы и общее количество. Сами
+ * авторы загружаются по ID через кэш второго уровня Hibernate. Ключ включает текущее
+ * {@link CatalogGeneration поколение каталога}, поэтому любое изменение книг или авторов делает
+ * все ранее сохраненные страницы недоступными
+ */
+@Component
+public class AuthorPageCache {
+
+    private final Cache pages;
+    private final CatalogGeneration catalogGeneration;
+    private final int cachedPages;
+
+    @Autowired
+    public AuthorPageCache(CacheManager cacheManager, CatalogGeneration catalogGeneration,
+        @Value("${library.cache.author-pages:3}") int cachedPages) {
+        this.pages = cacheManager.getCache(CacheConfig.AUTHOR_PAGES);
+        this.catalogGeneration = catalogGeneration;
+        this.cachedPages = cachedPages;
+    }
+
+    /**
+     * Возвращает страницу по сохраненным ID или выполняет запрос страницы и сохраняет ее ID.
+     * Если загруженные по ID авторы не совпадают с сохраненными версиями (автор изменен или
+     * удален, а поколение еще не увеличено), страница запрашивается заново
+     *
+     * @param pageable страница списка, отсортированного по имени
+     * @param query запрос страницы к базе данных
+     * @param load загрузка авторов по ID в порядке ID, отсутствующие авторы - null
+     * @return страница авторов
+     */
+    public Page<AuthorView> get(Pageable pageable, Supplier<Page<AuthorView>> query,
+        Function<List<Long>, List<AuthorView>> load) {
+        if (pages == null || pageable.getPageNumber() >= cachedPages) {
+            return query.get();
+        }
+
+        Key key = new Key(catalogGeneration.current(), pageable.getPageNumber(),
+            pageable.getPageSize());
+        Result result = pages.get(key, Result.class);
+        if (result != null) {
+            List<AuthorView> authors = load.apply(result.ids());
+            if (result.matches(authors)) {
+                return new PageImpl<>(authors, pageable, result.total());
+            }
+        }
+
+        Page<AuthorView> authors = query.get();
+        pages.put(key, Result.of(authors));
+        return authors;
+    }
+
+    private record Key(long generation, int page, int size) {
+
+    }
+
+    private record Result(List<Long> ids, List<Long> versions, long total) {
+
+        static Result of(Page<AuthorView> authors) {
+            return new Result(authors.map(AuthorView::id).toList(),
+                authors.map(AuthorView::version).toList(), authors.getTotalElements());
+        }
+
+        boolean matches(List<AuthorView> authors) {
+            return IntStream.range(0, ids.size()).allMatch(i -> authors.get(i) != null
+                && Objects.equals(authors.get(i).version(), versions.get(i)));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.boldyrev.library.cache;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Кэш результатов поиска книг: ID найденной страницы и общее количество. Ключ - нормализованные
+ * фильтры, страница и текущее {@link CatalogGeneration поколение каталога}, поэтому любое
+ * изменение книг или авторов делает все ранее найденные результаты недоступными
+ */
+@Component
+public class BookSearchCache {
+
+    private final Cache searches;
+    private final CatalogGeneration catalogGeneration;
+
+    @Autowired
+    public BookSearchCache(CacheManager cacheManager, CatalogGeneration catalogGeneration) {
+        this.searches = cacheManager.getCache(CacheConfig.BOOK_SEARCHES);
+        this.catalogGeneration = catalogGeneration;
+    }
+
+    /**
+     * Возвращает результат поиска из кэша или выполняет поиск и сохраняет результат. Поиск
+     * выполняется вне кэша, а не в Cache.get(key, loader): загрузчик Caffeine вызывается под
+     * synchronized-блокировкой, и виртуальный поток удерживал бы поток-носитель на время запроса
+     * к базе. Одновременные одинаковые поиски могут выполниться по разу
+     *
+     * @param ISBN ISBN, уже очищенный от разделителей
+     * @param search поиск ID по базе данных
+     * @return страница ID книг
+     */
+    public Page<Long> get(String title, String ISBN, String authorName, Pageable pageable,
+        Supplier<Page<Long>> search) {
+        if (searches == null) {
+            return search.get();
+        }
+
+        Key key = new Key(catalogGeneration.current(), fold(title), ISBN.toUpperCase(Locale.ROOT),
+            fold(authorName), pageable.getPageNumber(), pageable.getPageSize());
+        Result result = searches.get(key, Result.class);
+        if (result == null) {
+            Page<Long> ids = search.get();
+            result = new Result(List.copyOf(ids.getContent()), ids.getTotalElements());
+            searches.put(key, result);
+        }
+
+        return new PageImpl<>(result.ids(), pageable, result.total());
+    }
+
+    /**
+     * Приводит фильтр так же, как library_fold в базе данных: результаты поиска для приведенных
+     * к одному виду фильтров совпадают
+     */
+    private static String fold(String value) {
+        return value.toUpperCase(Locale.ROOT).replace('Ё', 'Е');
+    }
+
+    private record Key(long generation, String title, String ISBN, String authorName, int page,
+                       int size) {
+
+    }
+
+    private record Result(List<Long> ids, long total) {
+
+    }
+}
@@ -0,0 +1,21 @@
+package com.boldyrev.library.cache;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Кэши сериализованных книг и авторов, результатов поиска и страниц авторов. Сущности здесь не
+ * кэшируются: их хранит кэш второго уровня Hibernate, который не допускает записи устаревшего
+ * состояния при одновременном чтении и изменении. Реализация и ограничения кэшей задаются
+ * свойствами spring.cache.* (по умолчанию Caffeine), статистика попаданий доступна через
+ * /actuator/metrics
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String BOOK_FRAGMENTS = "bookFragments";
+    public static final String AUTHOR_FRAGMENTS = "authorFragments";
+    public static final String BOOK_SEARCHES = "bookSearches";
+    public static final String AUTHOR_PAGES = "authorPages";
+}
@@ -0,0 +1,122 @@
+package com.boldyrev.library.cache;
+
+import com.boldyrev.library.events.AuthorChangedEvent;
+import com.boldyrev.library.events.AuthorDeletedEvent;
+import com.boldyrev.library.events.BookChangedEvent;
+import com.boldyrev.library.events.BookDeletedEvent;
+import com.boldyrev.library.events.BooksCreatedEvent;
+import com.boldyrev.library.events.BooksDeletedEvent;
+import com.boldyrev.library.events.BooksUpdatedEvent;
+import com.boldyrev.library.events.CatalogReloadedEvent;
+import com.boldyrev.library.models.Author;
+import com.boldyrev.library.models.Book;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Collection;
+import java.util.Optional;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Удаляет из кэшей JSON-фрагментов изменившиеся записи после коммита транзакции. Фрагмент
+ * проверяется по версиям при каждом чтении, поэтому запись, которую параллельное чтение
+ * сохранило уже после удаления, не будет выдана для новых версий. Книги содержат данные авторов,
+ * поэтому изменение автора удаляет и его книги.
+ *
+ * <p>Связи удаленного автора удаляются каскадно в базе данных, поэтому коллекции авторов его
+ * книг удаляются и из кэша второго уровня Hibernate. Так же удаляются коллекции книг авторов при
+ * пакетном добавлении книг в обход Hibernate, а при пакетном изменении и удалении - и сами
+ * книги. После массовой загрузки каталога кэши очищаются полностью
+ */
+@Component
+public class CacheEvictionListener {
+
+    private final CacheManager cacheManager;
+    private final SessionFactory sessionFactory;
+
+    @Autowired
+    public CacheEvictionListener(CacheManager cacheManager,
+        EntityManagerFactory entityManagerFactory) {
+        this.cacheManager = cacheManager;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        evictBook(event.getBookId());
+    }
+
+    @TransactionalEventListener
+    public void onBookDeleted(BookDeletedEvent event) {
+        evictBook(event.getBookId());
+    }
+
+    @TransactionalEventListener
+    public void onBooksCreated(BooksCreatedEvent event) {
+        event.getAuthorIds().forEach(authorId -> sessionFactory.getCache()
+            .evictCollectionData(Author.class.getName() + ".books", authorId));
+    }
+
+    @TransactionalEventListener
+    public void onBooksUpdated(BooksUpdatedEvent event) {
+        evictBooks(event.getBookIds(), event.getAuthorIds());
+    }
+
+    @TransactionalEventListener
+    public void onBooksDeleted(BooksDeletedEvent event) {
+        evictBooks(event.getBookIds(), event.getAuthorIds());
+    }
+
+    @TransactionalEventListener
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        evictAuthor(event.getAuthorId(), event.getBookIds());
+    }
+
+    @TransactionalEventListener
+    public void onAuthorDeleted(AuthorDeletedEvent event) {
+        evictAuthor(event.getAuthorId(), event.getBookIds());
+        event.getBookIds().forEach(bookId -> sessionFactory.getCache()
+            .evictCollectionData(Book.class.getName() + ".authors", bookId));
+    }
+
+    @TransactionalEventListener
+    public void onCatalogReloaded(CatalogReloadedEvent event) {
+        cacheManager.getCacheNames().forEach(name -> cache(name).ifPresent(Cache::clear));
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    private void evictAuthor(Long authorId, Collection<Long> bookIds) {
+        evict(CacheConfig.AUTHOR_FRAGMENTS, authorId);
+        bookIds.forEach(this::evictBook);
+    }
+
+    /**
+     * Книги изменены или удалены в обход Hibernate, поэтому они удаляются и из кэша второго
+     * уровня вместе с коллекциями связанных авторов
+     */
+    private void evictBooks(Collection<Long> bookIds, Collection<Long> authorIds) {
+        bookIds.forEach(bookId -> {
+            evictBook(bookId);
+            sessionFactory.getCache().evictEntityData(Book.class, bookId);
+            sessionFactory.getCache()
+                .evictCollectionData(Book.class.getName() + ".authors", bookId);
+        });
+        authorIds.forEach(authorId -> sessionFactory.getCache()
+            .evictCollectionData(Author.class.getName() + ".books", authorId));
+    }
+
+    private void evictBook(Long bookId) {
+        evict(CacheConfig.BOOK_FRAGMENTS, bookId);
+    }
+
+    private void evict(String cacheName, Long id) {
+        cache(cacheName).ifPresent(cache -> cache.evict(id));
+    }
+
+    private Optional<Cache> cache(String cacheName) {
+        return Optional.ofNullable(cacheManager.getCache(cacheName));
+    }
+}
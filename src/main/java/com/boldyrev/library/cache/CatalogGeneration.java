@@ -0,0 +1,74 @@
+package com.boldyrev.library.cache;
+
+import com.boldyrev.library.events.AuthorChangedEvent;
+import com.boldyrev.library.events.AuthorDeletedEvent;
+import com.boldyrev.library.events.AuthorsCreatedEvent;
+import com.boldyrev.library.events.BookChangedEvent;
+import com.boldyrev.library.events.BookDeletedEvent;
+import com.boldyrev.library.events.BooksCreatedEvent;
+import com.boldyrev.library.events.BooksDeletedEvent;
+import com.boldyrev.library.events.BooksUpdatedEvent;
+import com.boldyrev.library.events.CatalogReloadedEvent;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Номер поколения каталога, который увеличивается после коммита любого изменения книг или
+ * авторов. Кэши, в ключ которых входит поколение, не требуют удаления отдельных записей: после
+ * изменения старые записи просто перестают запрашиваться и вытесняются по размеру кэша
+ */
+@Component
+public class CatalogGeneration {
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public long current() {
+        return generation.get();
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener
+    public void onBookDeleted(BookDeletedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener
+    public void onBooksCreated(BooksCreatedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener
+    public void onBooksUpdated(BooksUpdatedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener
+    public void onBooksDeleted(BooksDeletedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener
+    public void onAuthorsCreated(AuthorsCreatedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener
+    public void onAuthorDeleted(AuthorDeletedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener
+    public void onCatalogReloaded(CatalogReloadedEvent event) {
+        generation.incrementAndGet();
+    }
+}
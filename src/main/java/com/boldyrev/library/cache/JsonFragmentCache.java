@@ -0,0 +1,84 @@
+package com.boldyrev.library.cache;
+
+import com.boldyrev.library.dto.AuthorView;
+import com.boldyrev.library.dto.BookView;
+import com.boldyrev.library.util.json.JsonFragment;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Кэш сериализованных в JSON книг и авторов. Запись хранится по ID вместе с версиями, по
+ * которым она построена: книга включает и авторов, поэтому ее запись устаревает при изменении
+ * как самой книги, так и любого ее автора. Устаревшая запись сериализуется заново, а после
+ * коммита изменений удаляется {@link CacheEvictionListener}
+ */
+@Component
+public class JsonFragmentCache {
+
+    private final Cache bookFragments;
+    private final Cache authorFragments;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public JsonFragmentCache(CacheManager cacheManager, ObjectMapper objectMapper) {
+        this.bookFragments = cacheManager.getCache(CacheConfig.BOOK_FRAGMENTS);
+        this.authorFragments = cacheManager.getCache(CacheConfig.AUTHOR_FRAGMENTS);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return книга с авторами в виде JSON BookDTO
+     */
+    public JsonFragment book(BookView book) {
+        List<Long> versions = new ArrayList<>(1 + 2 * book.authors().size());
+        versions.add(book.version());
+        book.authors().forEach(author -> {
+            versions.add(author.id());
+            versions.add(author.version());
+        });
+
+        return fragment(bookFragments, book.id(), versions, () -> book);
+    }
+
+    /**
+     * @return автор в виде JSON AuthorDTO
+     */
+    public JsonFragment author(AuthorView author) {
+        return fragment(authorFragments, author.id(),
+            Collections.singletonList(author.version()), () -> author);
+    }
+
+    private JsonFragment fragment(Cache cache, Long id, List<Long> versions,
+        Supplier<Object> dto) {
+        if (cache == null || versions.contains(null)) {
+            return serialize(dto.get());
+        }
+
+        Entry entry = cache.get(id, Entry.class);
+        if (entry == null || !entry.versions().equals(versions)) {
+            entry = new Entry(versions, serialize(dto.get()));
+            cache.put(id, entry);
+        }
+        return entry.json();
+    }
+
+    private JsonFragment serialize(Object dto) {
+        try {
+            return new JsonFragment(objectMapper.writeValueAsString(dto));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Entry(List<Long> versions, JsonFragment json) {
+
+    }
+}
@@ -0,0 +1,104 @@
+package com.boldyrev.library.concurrency;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Пул соединений, выдающий соединения только через {@link DatabaseAdmission}: разрешение берется
+ * до запроса соединения у пула и возвращается при закрытии соединения. Через него проходят все
+ * обращения к базе: @Transactional, TransactionTemplate, JdbcTemplate вне транзакции и
+ * Hibernate
+ */
+public class AdmissionDataSource extends DelegatingDataSource {
+
+    private final DatabaseAdmission admission;
+
+    public AdmissionDataSource(DataSource dataSource, DatabaseAdmission admission) {
+        super(dataSource);
+        this.admission = admission;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        admission.enter();
+        try {
+            return admitted(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            admission.exit();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        admission.enter();
+        try {
+            return admitted(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            admission.exit();
+            throw e;
+        }
+    }
+
+    public DatabaseAdmission getAdmission() {
+        return admission;
+    }
+
+    private Connection admitted(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+            new Class<?>[]{ConnectionProxy.class}, new AdmittedConnection(connection));
+    }
+
+    /**
+     * Возвращает разрешение при первом закрытии соединения, остальные вызовы передает
+     * соединению пула
+     */
+    private class AdmittedConnection implements InvocationHandler {
+
+        private final Connection target;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        AdmittedConnection(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getTargetConnection":
+                    return target;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Admitted connection [" + target + "]";
+                case "close":
+                    try {
+                        target.close();
+                    } finally {
+                        if (closed.compareAndSet(false, true)) {
+                            admission.exit();
+                        }
+                    }
+                    return null;
+                default:
+                    break;
+            }
+
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
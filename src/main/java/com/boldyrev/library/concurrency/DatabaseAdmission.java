@@ -0,0 +1,60 @@
+package com.boldyrev.library.concurrency;
+
+import com.boldyrev.library.exceptions.ServiceUnavailableException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ограничение числа соединений, одновременно взятых из пула Hikari, размером пула. Остальные
+ * потоки ждут разрешения в очереди семафора до library.virtual-threads.admission-timeout, а не в
+ * очереди пула соединений. Для виртуальных потоков ожидание на семафоре не занимает
+ * поток-носитель.
+ *
+ * <p>Разрешение берется на каждое соединение ({@link AdmissionDataSource}), поэтому поток,
+ * которому нужно второе соединение (например, для транзакции REQUIRES_NEW), берет второе
+ * разрешение
+ */
+@Slf4j
+public class DatabaseAdmission {
+
+    private final Semaphore permits;
+    private final int size;
+    private final long timeoutNanos;
+
+    public DatabaseAdmission(int size, Duration timeout) {
+        this.size = size;
+        this.permits = new Semaphore(size, true);
+        this.timeoutNanos = timeout.toNanos();
+        log.info("Database admission limited to {} concurrent connections", size);
+    }
+
+    /**
+     * Берет разрешение. Каждому вызову соответствует вызов {@link #exit()}
+     *
+     * @throws ServiceUnavailableException если разрешение не получено за время ожидания
+     */
+    public void enter() {
+        try {
+            if (!permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new ServiceUnavailableException("Database is busy, try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for database");
+        }
+    }
+
+    public void exit() {
+        permits.release();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getAvailable() {
+        return permits.availablePermits();
+    }
+}
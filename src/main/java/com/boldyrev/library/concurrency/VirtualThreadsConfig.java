@@ -0,0 +1,109 @@
+package com.boldyrev.library.concurrency;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Обработка запросов на виртуальных потоках, если library.virtual-threads.enabled=true.
+ * Tomcat выполняет каждый запрос (контроллер и вызовы сервисов с @Transactional) в отдельном
+ * виртуальном потоке, на них же выполняются асинхронные ответы MVC. Соединения с базой выдаются
+ * через {@link DatabaseAdmission}.
+ *
+ * <p>Приложение собирается под Java 17, поэтому виртуальные потоки подключаются только при
+ * запуске на Java 21 и новее, на более старых версиях запросы остаются на пуле Tomcat
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.virtual-threads.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadsConfig {
+
+    private static final int VIRTUAL_THREADS_VERSION = 21;
+
+    /**
+     * Размер пула Hikari, если он не задан: до запуска пула getMaximumPoolSize возвращает -1
+     */
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    public VirtualThreadsConfig() {
+        if (!VirtualThreadsAvailable.available()) {
+            log.warn("Virtual threads require Java {}, running on {}: requests stay on "
+                + "platform threads", VIRTUAL_THREADS_VERSION, Runtime.version());
+        }
+    }
+
+    /**
+     * Оборачивает пул Hikari в {@link AdmissionDataSource} с числом разрешений, равным размеру
+     * пула
+     */
+    @Bean
+    public static BeanPostProcessor admissionDataSourcePostProcessor(
+        @Value("${library.virtual-threads.admission-timeout:30s}") Duration timeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    int size = dataSource.getMaximumPoolSize() > 0
+                        ? dataSource.getMaximumPoolSize() : DEFAULT_POOL_SIZE;
+                    return new AdmissionDataSource(dataSource, new DatabaseAdmission(size, timeout));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public DatabaseAdmission databaseAdmission(DataSource dataSource) throws SQLException {
+        return dataSource.unwrap(AdmissionDataSource.class).getAdmission();
+    }
+
+    @Bean
+    @Conditional(VirtualThreadsAvailable.class)
+    public ExecutorService virtualThreadsExecutor() throws ReflectiveOperationException {
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+            .invoke(null);
+    }
+
+    @Bean
+    @Conditional(VirtualThreadsAvailable.class)
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer(
+        ExecutorService virtualThreadsExecutor) {
+        log.info("Tomcat requests are executed on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadsExecutor);
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    @Conditional(VirtualThreadsAvailable.class)
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadsExecutor) {
+        return new TaskExecutorAdapter(virtualThreadsExecutor);
+    }
+
+    static class VirtualThreadsAvailable implements Condition {
+
+        static boolean available() {
+            return Runtime.version().feature() >= VIRTUAL_THREADS_VERSION;
+        }
+
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return available();
+        }
+    }
+}
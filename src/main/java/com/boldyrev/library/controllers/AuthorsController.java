@@ -1,16 +1,32 @@
 package com.boldyrev.library.controllers;
 
+import com.boldyrev.library.cache.JsonFragmentCache;
 import com.boldyrev.library.controllers.responses.CustomResponse;
 import com.boldyrev.library.dto.AuthorDTO;
+import com.boldyrev.library.dto.AuthorView;
 import com.boldyrev.library.dto.transfer.NewOrUpdateAuthor;
 import com.boldyrev.library.models.Author;
 import com.boldyrev.library.services.AuthorsService;
+import com.boldyrev.library.services.BooksService;
+import com.boldyrev.library.util.batch.BatchItemResult;
+import com.boldyrev.library.util.http.ETags;
+import com.boldyrev.library.util.http.MediaTypes;
 import com.boldyrev.library.util.mappers.AuthorMapper;
+import com.boldyrev.library.util.pagination.CountMode;
+import com.boldyrev.library.util.pagination.CountedPage;
+import com.boldyrev.library.util.pagination.KeysetPage;
+import com.boldyrev.library.util.validators.BatchValidator;
+import com.boldyrev.library.util.validators.PatchValidator;
 import com.boldyrev.library.util.validators.entity_validators.AuthorValidator;
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +34,7 @@ import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -25,6 +42,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping(value = "/api/v1/authors", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -32,15 +50,25 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuthorsController {
 
     private final AuthorsService authorsService;
+    private final BooksService booksService;
     private final AuthorMapper authorMapper;
     private final AuthorValidator authorValidator;
+    private final JsonFragmentCache jsonFragments;
+    private final BatchValidator batchValidator;
+    private final PatchValidator patchValidator;
 
     @Autowired
-    public AuthorsController(AuthorsService authorsService, AuthorMapper authorMapper,
-        AuthorValidator authorValidator) {
+    public AuthorsController(AuthorsService authorsService, BooksService booksService,
+        AuthorMapper authorMapper, AuthorValidator authorValidator,
+        JsonFragmentCache jsonFragments, BatchValidator batchValidator,
+        PatchValidator patchValidator) {
         this.authorsService = authorsService;
+        this.booksService = booksService;
         this.authorMapper = authorMapper;
         this.authorValidator = authorValidator;
+        this.jsonFragments = jsonFragments;
+        this.batchValidator = batchValidator;
+        this.patchValidator = patchValidator;
     }
 
     /**
@@ -48,16 +76,96 @@ public class AuthorsController {
      *
      * @param page номер возвращаемой страницы (по умолчаниб 0)
      * @param size размер возвращаемой страницы (по умолчанию 10)
-     * @return страница со списком авторов
+     * @param cursor курсор keyset-пагинации: пустое значение запрашивает первую страницу, иначе
+     * передается значение next из предыдущего ответа (необязательный, page при этом не учитывается)
+     * @param total способ подсчета общего количества авторов: EXACT, NONE или ESTIMATED (по
+     * умолчанию EXACT)
+     * @param request запрос (заголовок If-None-Match)
+     * @return страница со списком авторов или 304, если ни один автор страницы не изменился
      */
     @GetMapping
     public ResponseEntity<?> getAllByPage(
         @RequestParam(value = "page", defaultValue = "0") @PositiveOrZero Integer page,
-        @RequestParam(value = "size", defaultValue = "10") @Positive Integer size) {
-        Page<AuthorDTO> authors = authorsService.findAllByPage(page, size)
-            .map(authorMapper::authorToAuthorDTO);
+        @RequestParam(value = "size", defaultValue = "10") @Positive Integer size,
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "total", defaultValue = "EXACT") CountMode total,
+        WebRequest request) {
+        if (cursor != null) {
+            KeysetPage<AuthorView> authors = authorsService.findAllAfter(cursor, size);
+            if (request.checkNotModified(
+                ETags.ofAuthorViews(authors.getContent(), size, authors.getNext()))) {
+                return null;
+            }
+
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(authors.map(jsonFragments::author));
+        }
+
+        if (total == CountMode.NONE) {
+            Slice<AuthorView> authors = authorsService.findSliceByPage(page, size);
+            if (request.checkNotModified(
+                ETags.ofAuthorViews(authors.getContent(), total, authors.hasNext()))) {
+                return null;
+            }
+
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(authors.map(jsonFragments::author));
+        }
+
+        if (total == CountMode.ESTIMATED) {
+            CountedPage<AuthorView> authors = authorsService.findAllEstimated(page, size);
+            if (request.checkNotModified(ETags.ofAuthorViews(authors.getContent(), total,
+                authors.getTotalElements(), authors.isTotalExact()))) {
+                return null;
+            }
+
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(authors.map(jsonFragments::author));
+        }
+
+        Page<AuthorView> authors = authorsService.findAllByPage(page, size);
+        if (request.checkNotModified(
+            ETags.ofAuthorViews(authors.getContent(), total, authors.getTotalElements()))) {
+            return null;
+        }
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+            .body(authors.map(jsonFragments::author));
+    }
+
+    /**
+     * GET endpoint для получения автора по ID
+     *
+     * @param id идентификатор автора
+     * @param request запрос (заголовок If-None-Match)
+     * @return найденный автор или 304, если он не изменился
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getById(@PathVariable("id") Long id, WebRequest request) {
+        Author author = authorsService.findById(id);
+        if (request.checkNotModified(ETags.ofAuthors(List.of(author)))) {
+            return null;
+        }
 
-        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(authors);
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(CustomResponse.builder().body(authorMapper.authorToAuthorDTO(author)).build());
+    }
+
+    /**
+     * GET endpoint для подсказок имен авторов по префиксу. Ответ строится из индекса в памяти без
+     * обращения к базе данных
+     *
+     * @param prefix начало имени автора или любого слова в нем
+     * @param size максимальное количество подсказок (по умолчанию 10)
+     * @return список авторов (ID и имя)
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(@RequestParam("prefix") String prefix,
+        @RequestParam(value = "size", defaultValue = "10") @Positive Integer size) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(CustomResponse.builder().body(authorsService.suggest(prefix, size)).build());
     }
 
     /**
@@ -78,6 +186,35 @@ public class AuthorsController {
             .body(authorMapper.authorToAuthorDTO(savedAuthor)).build(), HttpStatus.CREATED);
     }
 
+    /**
+     * POST endpoint для пакетного создания авторов. Каждый элемент проверяется отдельно, сохранение
+     * идет транзакциями по library.batch.chunk-size элементов пакетными INSERT
+     *
+     * @param authors данные новых авторов
+     * @return результат по каждому элементу: ID сохраненной сущности или ошибка
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> createBatch(@RequestBody List<AuthorDTO> authors) {
+        Map<Integer, String> errors = batchValidator.validate(authors, authorValidator,
+            NewOrUpdateAuthor.class);
+        List<Author> validAuthors = IntStream.range(0, authors.size())
+            .filter(index -> !errors.containsKey(index))
+            .mapToObj(authors::get)
+            .map(authorMapper::authorDTOToAuthor)
+            .toList();
+
+        List<BatchItemResult> results = BatchItemResult.merge(authors.size(), errors,
+            authorsService.saveAll(validAuthors));
+        long saved = results.stream().filter(BatchItemResult::isSaved).count();
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(CustomResponse.builder()
+                .body(results)
+                .message(String.format("%d of %d authors saved", saved, results.size()))
+                .build());
+    }
+
     /**
      * PUT endpoint для обновления существующего автора по ID
      *
@@ -98,6 +235,27 @@ public class AuthorsController {
                 .body(authorMapper.authorToAuthorDTO(savedAuthor)).build());
     }
 
+    /**
+     * PATCH endpoint для частичного обновления автора по ID в формате JSON Merge Patch.
+     * Проверяются и изменяются только переданные поля
+     *
+     * @param id идентификатор обновляемого автора
+     * @param patch изменяемые поля автора
+     * @return обновленный автор
+     */
+    @PatchMapping(value = "/{id}", consumes = MediaTypes.APPLICATION_MERGE_PATCH_JSON_VALUE)
+    public ResponseEntity<?> patchById(@PathVariable("id") Long id,
+        @RequestBody JsonNode patch) {
+        AuthorDTO author = patchValidator.validate(patch, AuthorDTO.class, authorValidator,
+            NewOrUpdateAuthor.class);
+        Author savedAuthor = authorsService.patchById(id, authorMapper.authorDTOToAuthor(author));
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(CustomResponse.builder()
+                .body(authorMapper.authorToAuthorDTO(savedAuthor)).build());
+    }
+
     /**
      * DELETE endpoint для удаления автора по ID
      *
@@ -112,4 +270,22 @@ public class AuthorsController {
             .body(CustomResponse.builder()
                 .message("Author was deleted or not exists").build());
     }
+
+    /**
+     * DELETE endpoint для удаления всех книг автора, в том числе написанных в соавторстве, одним
+     * запросом к базе данных. Сам автор не удаляется
+     *
+     * @param id идентификатор автора
+     * @return количество удаленных книг
+     */
+    @DeleteMapping(value = "/{id}/books", consumes = {})
+    public ResponseEntity<?> deleteBooksById(@PathVariable("id") Long id) {
+        int deleted = booksService.deleteAllByAuthorId(id);
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(CustomResponse.builder()
+                .body(deleted)
+                .message(String.format("%d books deleted", deleted))
+                .build());
+    }
 }
@@ -1,16 +1,41 @@
 package com.boldyrev.library.controllers;
 
+import com.boldyrev.library.bulk.CatalogExporter;
+import com.boldyrev.library.bulk.CatalogFormat;
+import com.boldyrev.library.cache.JsonFragmentCache;
 import com.boldyrev.library.controllers.responses.CustomResponse;
 import com.boldyrev.library.dto.BookDTO;
+import com.boldyrev.library.dto.BookView;
 import com.boldyrev.library.dto.transfer.NewOrUpdateBook;
+import com.boldyrev.library.exceptions.ValidationException;
 import com.boldyrev.library.models.Book;
 import com.boldyrev.library.services.BooksService;
+import com.boldyrev.library.util.batch.BatchItemResult;
+import com.boldyrev.library.util.batch.UpsertStatus;
+import com.boldyrev.library.util.http.ETags;
+import com.boldyrev.library.util.http.MediaTypes;
+import com.boldyrev.library.util.isbn.ISBNs;
 import com.boldyrev.library.util.mappers.BookMapper;
+import com.boldyrev.library.util.pagination.CountMode;
+import com.boldyrev.library.util.pagination.CountedPage;
+import com.boldyrev.library.util.pagination.KeysetPage;
+import com.boldyrev.library.util.validators.BatchValidator;
+import com.boldyrev.library.util.validators.PatchValidator;
 import com.boldyrev.library.util.validators.entity_validators.BookValidator;
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +43,7 @@ import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -25,6 +51,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping(value = "/api/v1/books", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -34,13 +62,65 @@ public class BooksController {
     private final BooksService booksService;
     private final BookMapper bookMapper;
     private final BookValidator bookValidator;
+    private final JsonFragmentCache jsonFragments;
+    private final BatchValidator batchValidator;
+    private final PatchValidator patchValidator;
+    private final CatalogExporter catalogExporter;
 
     @Autowired
     public BooksController(BooksService booksService, BookMapper bookMapper,
-        BookValidator bookValidator) {
+        BookValidator bookValidator, JsonFragmentCache jsonFragments,
+        BatchValidator batchValidator, PatchValidator patchValidator,
+        CatalogExporter catalogExporter) {
         this.booksService = booksService;
         this.bookMapper = bookMapper;
         this.bookValidator = bookValidator;
+        this.jsonFragments = jsonFragments;
+        this.batchValidator = batchValidator;
+        this.patchValidator = patchValidator;
+        this.catalogExporter = catalogExporter;
+    }
+
+    /**
+     * GET endpoint для получения книги по ID вместе с авторами
+     *
+     * @param id идентификатор книги
+     * @param request запрос (заголовок If-None-Match)
+     * @return найденная книга или 304, если ни книга, ни ее авторы не изменились
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getById(@PathVariable("id") Long id, WebRequest request) {
+        BookView book = booksService.findViewById(id);
+        if (request.checkNotModified(ETags.ofBookViews(List.of(book)))) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(CustomResponse.builder().body(jsonFragments.book(book)).build());
+    }
+
+    /**
+     * GET endpoint для выгрузки всего каталога. Книги читаются курсором базы данных и сразу
+     * записываются в ответ, поэтому расход памяти не зависит от размера каталога
+     *
+     * @param format формат выгрузки: NDJSON или CSV (по умолчанию NDJSON), совпадает с форматом
+     * массовой загрузки
+     * @return книги с авторами по возрастанию ID
+     */
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<StreamingResponseBody> export(
+        @RequestParam(value = "format", defaultValue = "NDJSON") CatalogFormat format) {
+        boolean csv = format == CatalogFormat.CSV;
+
+        return ResponseEntity.ok()
+            .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(csv ? "catalog.csv" : "catalog.ndjson")
+                .build()
+                .toString())
+            .body(output -> catalogExporter.export(output, format));
     }
 
     /**
@@ -60,6 +140,35 @@ public class BooksController {
             .body(bookMapper.bookToBookDTO(savedBook)).build(), HttpStatus.CREATED);
     }
 
+    /**
+     * POST endpoint для пакетного создания книг. Каждый элемент проверяется отдельно, сохранение
+     * идет транзакциями по library.batch.chunk-size элементов пакетными INSERT
+     *
+     * @param books данные новых книг
+     * @return результат по каждому элементу: ID сохраненной сущности или ошибка
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> createBatch(@RequestBody List<BookDTO> books) {
+        Map<Integer, String> errors = batchValidator.validate(books, bookValidator,
+            NewOrUpdateBook.class);
+        List<Book> validBooks = IntStream.range(0, books.size())
+            .filter(index -> !errors.containsKey(index))
+            .mapToObj(books::get)
+            .map(bookMapper::bookDTOToBook)
+            .toList();
+
+        List<BatchItemResult> results = BatchItemResult.merge(books.size(), errors,
+            booksService.saveAll(validBooks));
+        long saved = results.stream().filter(BatchItemResult::isSaved).count();
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(CustomResponse.builder()
+                .body(results)
+                .message(String.format("%d of %d books saved", saved, results.size()))
+                .build());
+    }
+
     /**
      * PUT endpoint для обновления существующей книги по ID
      *
@@ -79,6 +188,95 @@ public class BooksController {
             .body(CustomResponse.builder().body(bookMapper.bookToBookDTO(savedBook)).build());
     }
 
+    /**
+     * PATCH endpoint для частичного обновления книги по ID в формате JSON Merge Patch. Проверяются
+     * и изменяются только переданные поля, без поля authors связи с авторами не изменяются
+     *
+     * @param id идентификатор обновляемой книги
+     * @param patch изменяемые поля книги
+     * @return обновленная книга
+     */
+    @PatchMapping(value = "/{id}", consumes = MediaTypes.APPLICATION_MERGE_PATCH_JSON_VALUE)
+    public ResponseEntity<?> patchById(@PathVariable("id") Long id,
+        @RequestBody JsonNode patch) {
+        BookDTO book = patchValidator.validate(patch, BookDTO.class, bookValidator,
+            NewOrUpdateBook.class);
+        Book savedBook = booksService.patchById(id, bookMapper.bookDTOToBook(book));
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(CustomResponse.builder().body(bookMapper.bookToBookDTO(savedBook)).build());
+    }
+
+    /**
+     * PUT endpoint для добавления или обновления книги по ISBN. Повторная отправка той же книги не
+     * изменяет ее и не приводит к ошибке
+     *
+     * @param ISBN ISBN книги, должен совпадать с ISBN в теле запроса после приведения
+     * @param book данные книги
+     * @param errors ошибки валидации
+     * @return сохраненная книга: 201, если книга добавлена, иначе 200
+     */
+    @PutMapping("/isbn/{isbn}")
+    public ResponseEntity<?> upsertByISBN(@PathVariable("isbn") String ISBN,
+        @RequestBody @Validated(NewOrUpdateBook.class) BookDTO book, BindingResult errors) {
+        bookValidator.validate(book, errors);
+        if (!ISBNs.enrich(ISBN).equals(ISBNs.enrich(book.getISBN()))) {
+            throw new ValidationException(String.format(
+                "ISBN %s in path doesn't match ISBN %s in request body", ISBN, book.getISBN()));
+        }
+
+        BatchItemResult result = booksService.upsertAll(List.of(bookMapper.bookDTOToBook(book)))
+            .get(0);
+        if (!result.isSaved()) {
+            throw new ValidationException(result.getError());
+        }
+
+        return ResponseEntity
+            .status(result.getStatus() == UpsertStatus.INSERTED
+                ? HttpStatus.CREATED : HttpStatus.OK)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(CustomResponse.builder()
+                .body(bookMapper.bookToBookDTO(booksService.findById(result.getId())))
+                .message(String.format("Book %s",
+                    result.getStatus().name().toLowerCase(Locale.ROOT)))
+                .build());
+    }
+
+    /**
+     * PUT endpoint для пакетного добавления или обновления книг по ISBN. Каждый элемент
+     * проверяется отдельно, сохранение идет транзакциями по library.batch.chunk-size элементов
+     *
+     * @param books данные книг
+     * @return результат по каждому элементу: ID и итог (INSERTED, UPDATED, UNCHANGED) или ошибка
+     */
+    @PutMapping("/isbn/batch")
+    public ResponseEntity<?> upsertBatch(@RequestBody List<BookDTO> books) {
+        Map<Integer, String> errors = batchValidator.validate(books, bookValidator,
+            NewOrUpdateBook.class);
+        List<Book> validBooks = IntStream.range(0, books.size())
+            .filter(index -> !errors.containsKey(index))
+            .mapToObj(books::get)
+            .map(bookMapper::bookDTOToBook)
+            .toList();
+
+        List<BatchItemResult> results = BatchItemResult.merge(books.size(), errors,
+            booksService.upsertAll(validBooks));
+        Map<UpsertStatus, Long> counts = results.stream()
+            .filter(BatchItemResult::isSaved)
+            .collect(Collectors.groupingBy(BatchItemResult::getStatus, Collectors.counting()));
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(CustomResponse.builder()
+                .body(results)
+                .message(String.format("%d inserted, %d updated, %d unchanged of %d books",
+                    counts.getOrDefault(UpsertStatus.INSERTED, 0L),
+                    counts.getOrDefault(UpsertStatus.UPDATED, 0L),
+                    counts.getOrDefault(UpsertStatus.UNCHANGED, 0L), results.size()))
+                .build());
+    }
+
     /**
      * DELETE endpoint для удаления книги по ID
      *
@@ -93,6 +291,50 @@ public class BooksController {
             .body(CustomResponse.builder().message("Book was deleted or not exists").build());
     }
 
+    /**
+     * DELETE endpoint для удаления книг по списку ID или по фильтрам поиска одним запросом к базе
+     * данных. Связи с авторами удаляются каскадно. Фильтры с символами шаблона LIKE (% и _)
+     * отклоняются, а фильтр ISBN без цифр не считается фильтром
+     *
+     * @param ids идентификаторы удаляемых книг (необязательный, вместе с ним фильтры не
+     * передаются)
+     * @param title фильтр названия книги (по умолчанию "")
+     * @param ISBN фильтр ISBN (по умолчанию "")
+     * @param authorName фильтр имени автора (по умолчанию "")
+     * @return количество удаленных книг
+     */
+    @DeleteMapping
+    public ResponseEntity<?> deleteAll(
+        @RequestParam(value = "ids", required = false) List<Long> ids,
+        @RequestParam(value = "title", defaultValue = "") String title,
+        @RequestParam(value = "isbn", defaultValue = "") String ISBN,
+        @RequestParam(value = "author", defaultValue = "") String authorName) {
+        if (title.matches(".*[%_].*") || authorName.matches(".*[%_].*")) {
+            throw new ValidationException("Title and author filters can't contain % or _");
+        }
+        boolean filtered = !title.isBlank() || !ISBNs.enrich(ISBN).isEmpty()
+            || !authorName.isBlank();
+        if (ids == null && !filtered) {
+            throw new ValidationException(
+                "Books ids or at least one of title, isbn, author filters must be specified");
+        }
+        if (ids != null && filtered) {
+            throw new ValidationException(
+                "Books ids and title, isbn, author filters can't be specified together");
+        }
+
+        int deleted = ids != null
+            ? booksService.deleteAllByIds(ids)
+            : booksService.deleteAllByParameters(title, ISBN, authorName);
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(CustomResponse.builder()
+                .body(deleted)
+                .message(String.format("%d books deleted", deleted))
+                .build());
+    }
+
     /**
      * GET endpoint для поиска книг по названию/ISBN/имени автора
      *
@@ -101,7 +343,15 @@ public class BooksController {
      * @param authorName фильтр имени автора (по умолчанию "")
      * @param page номер возвращаемой страницы (по умолчаниб 0)
      * @param size размер возвращаемой страницы (по умолчанию 10)
-     * @return страница с найденными книгами
+     * @param cursor курсор keyset-пагинации: пустое значение запрашивает первую страницу, иначе
+     * передается значение next из предыдущего ответа (необязательный, page при этом не учитывается)
+     * @param total способ подсчета общего количества книг: EXACT, NONE или ESTIMATED (по
+     * умолчанию EXACT)
+     * @param ranked поиск по полнотекстовому индексу с учетом опечаток и сортировкой по
+     * релевантности (по умолчанию false, cursor и total при этом не учитываются)
+     * @param request запрос (заголовок If-None-Match)
+     * @return страница с найденными книгами или 304, если ни одна книга страницы и ни один ее
+     * автор не изменились
      */
     @GetMapping("/search")
     public ResponseEntity<?> searchByParameters(
@@ -109,13 +359,70 @@ public class BooksController {
         @RequestParam(value = "isbn", defaultValue = "") String ISBN,
         @RequestParam(value = "author", defaultValue = "") String authorName,
         @RequestParam(value = "page", defaultValue = "0") @PositiveOrZero Integer page,
-        @RequestParam(value = "size", defaultValue = "10") @Positive Integer size) {
+        @RequestParam(value = "size", defaultValue = "10") @Positive Integer size,
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "total", defaultValue = "EXACT") CountMode total,
+        @RequestParam(value = "ranked", defaultValue = "false") boolean ranked,
+        WebRequest request) {
+
+        if (ranked) {
+            Page<BookView> books = booksService.searchRanked(title, ISBN, authorName, page, size);
+            if (request.checkNotModified(
+                ETags.ofBookViews(books.getContent(), "ranked", books.getTotalElements()))) {
+                return null;
+            }
+
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(books.map(jsonFragments::book));
+        }
+
+        if (cursor != null) {
+            KeysetPage<BookView> books = booksService.searchAfter(title, ISBN, authorName, cursor,
+                size);
+            if (request.checkNotModified(
+                ETags.ofBookViews(books.getContent(), size, books.getNext()))) {
+                return null;
+            }
+
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(books.map(jsonFragments::book));
+        }
+
+        if (total == CountMode.NONE) {
+            Slice<BookView> books = booksService.searchSlice(title, ISBN, authorName, page, size);
+            if (request.checkNotModified(
+                ETags.ofBookViews(books.getContent(), total, books.hasNext()))) {
+                return null;
+            }
+
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(books.map(jsonFragments::book));
+        }
+
+        if (total == CountMode.ESTIMATED) {
+            CountedPage<BookView> books = booksService.searchEstimated(title, ISBN, authorName, page,
+                size);
+            if (request.checkNotModified(ETags.ofBookViews(books.getContent(), total,
+                books.getTotalElements(), books.isTotalExact()))) {
+                return null;
+            }
+
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(books.map(jsonFragments::book));
+        }
 
-        Page<BookDTO> books = booksService.search(title, ISBN, authorName, page, size)
-            .map(bookMapper::bookToBookDTO);
+        Page<BookView> books = booksService.search(title, ISBN, authorName, page, size);
+        if (request.checkNotModified(
+            ETags.ofBookViews(books.getContent(), total, books.getTotalElements()))) {
+            return null;
+        }
 
         return ResponseEntity.ok()
             .contentType(MediaType.APPLICATION_JSON)
-            .body(books);
+            .body(books.map(jsonFragments::book));
     }
 }
@@ -0,0 +1,70 @@
+package com.boldyrev.library.controllers;
+
+import com.boldyrev.library.controllers.responses.CustomResponse;
+import com.boldyrev.library.exceptions.DataNotFoundException;
+import com.boldyrev.library.snapshot.CatalogSnapshots;
+import com.boldyrev.library.snapshot.Snapshot;
+import com.boldyrev.library.snapshot.Snapshot.FileEntry;
+import com.boldyrev.library.util.http.FileTransfers;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(value = "/api/v1/snapshots", produces = MediaType.APPLICATION_JSON_VALUE)
+public class SnapshotsController {
+
+    private final ObjectProvider<CatalogSnapshots> catalogSnapshots;
+
+    @Autowired
+    public SnapshotsController(ObjectProvider<CatalogSnapshots> catalogSnapshots) {
+        this.catalogSnapshots = catalogSnapshots;
+    }
+
+    /**
+     * GET endpoint для получения манифеста последнего снимка каталога
+     *
+     * @return время создания снимка и его файлы с количеством записей, размером и SHA-256
+     */
+    @GetMapping("/latest")
+    public ResponseEntity<?> getLatest() {
+        return ResponseEntity.ok(CustomResponse.builder()
+            .body(latest().getManifest()).build());
+    }
+
+    /**
+     * GET endpoint для скачивания файла последнего снимка каталога. Файл отдается как есть, со
+     * сжатием gzip в Content-Encoding, поддерживаются заголовки Range, If-Range и If-None-Match
+     *
+     * @param name имя файла из манифеста
+     */
+    @GetMapping(value = "/latest/{name}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void getLatestFile(@PathVariable("name") String name, HttpServletRequest request,
+        HttpServletResponse response) throws IOException {
+        FileEntry entry = latest().file(name).orElseThrow(
+            () -> new DataNotFoundException(String.format("Snapshot file %s not found", name)));
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        FileTransfers.send(entry.getPath(), "\"" + entry.getFile().getSha256() + "\"", request,
+            response);
+    }
+
+    private Snapshot latest() {
+        CatalogSnapshots snapshots = catalogSnapshots.getIfAvailable();
+        if (snapshots == null) {
+            throw new DataNotFoundException("Catalog snapshots are disabled");
+        }
+        return snapshots.latest().orElseThrow(
+            () -> new DataNotFoundException("Catalog snapshot not found"));
+    }
+}
@@ -0,0 +1,22 @@
+package com.boldyrev.library.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDate;
+
+/**
+ * Автор для чтения, построенный напрямую из строки запроса. В JSON совпадает с {@link AuthorDTO}
+ *
+ * @param version версия автора для ETag, в JSON не выводится
+ */
+@JsonInclude(Include.NON_NULL)
+public record AuthorView(
+    Long id,
+    String name,
+    @JsonProperty("birth_date") LocalDate birthDate,
+    String country,
+    @JsonIgnore Long version) {
+
+}
@@ -0,0 +1,26 @@
+package com.boldyrev.library.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Книга с авторами для чтения, построенная напрямую из строк запроса без сущностей и маппера.
+ * В JSON совпадает с {@link BookDTO}, авторы упорядочены по ID
+ *
+ * @param version версия книги для ETag, в JSON не выводится
+ */
+@JsonInclude(Include.NON_NULL)
+public record BookView(
+    Long id,
+    String title,
+    @JsonProperty("isbn") String ISBN,
+    @JsonProperty("num_pages") Integer numPages,
+    @JsonProperty("publication_date") LocalDate publicationDate,
+    List<AuthorView> authors,
+    @JsonIgnore Long version) {
+
+}
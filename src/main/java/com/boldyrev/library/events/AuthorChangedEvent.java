@@ -0,0 +1,17 @@
+package com.boldyrev.library.events;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Автор изменен. Содержит ID книг автора, так как данные автора входят в представление книги
+ */
+@Getter
+@AllArgsConstructor
+public class AuthorChangedEvent {
+
+    private final Long authorId;
+
+    private final List<Long> bookIds;
+}
@@ -0,0 +1,17 @@
+package com.boldyrev.library.events;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Автор удален. Содержит ID книг, из которых автор был удален вместе с ним
+ */
+@Getter
+@AllArgsConstructor
+public class AuthorDeletedEvent {
+
+    private final Long authorId;
+
+    private final List<Long> bookIds;
+}
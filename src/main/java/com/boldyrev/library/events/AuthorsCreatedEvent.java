@@ -0,0 +1,15 @@
+package com.boldyrev.library.events;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Авторы добавлены пакетно в обход Hibernate
+ */
+@Getter
+@AllArgsConstructor
+public class AuthorsCreatedEvent {
+
+    private final List<Long> authorIds;
+}
@@ -0,0 +1,14 @@
+package com.boldyrev.library.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Книга создана или изменена (название, ISBN, список авторов и т.д.)
+ */
+@Getter
+@AllArgsConstructor
+public class BookChangedEvent {
+
+    private final Long bookId;
+}
@@ -0,0 +1,14 @@
+package com.boldyrev.library.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Книга удалена
+ */
+@Getter
+@AllArgsConstructor
+public class BookDeletedEvent {
+
+    private final Long bookId;
+}
@@ -0,0 +1,18 @@
+package com.boldyrev.library.events;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Книги добавлены пакетно в обход Hibernate. Содержит ID авторов этих книг, так как у авторов
+ * изменились коллекции книг
+ */
+@Getter
+@AllArgsConstructor
+public class BooksCreatedEvent {
+
+    private final List<Long> bookIds;
+
+    private final List<Long> authorIds;
+}
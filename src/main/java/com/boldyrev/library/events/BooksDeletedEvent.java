@@ -0,0 +1,18 @@
+package com.boldyrev.library.events;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Книги удалены одним запросом в обход Hibernate. Содержит ID авторов, связи которых с этими
+ * книгами были удалены каскадно
+ */
+@Getter
+@AllArgsConstructor
+public class BooksDeletedEvent {
+
+    private final List<Long> bookIds;
+
+    private final List<Long> authorIds;
+}
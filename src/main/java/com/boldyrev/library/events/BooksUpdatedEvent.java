@@ -0,0 +1,18 @@
+package com.boldyrev.library.events;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Книги изменены пакетно в обход Hibernate. Содержит ID авторов, связи которых с этими книгами
+ * были добавлены или удалены
+ */
+@Getter
+@AllArgsConstructor
+public class BooksUpdatedEvent {
+
+    private final List<Long> bookIds;
+
+    private final List<Long> authorIds;
+}
@@ -0,0 +1,9 @@
+package com.boldyrev.library.events;
+
+/**
+ * Каталог загружен массово в обход Hibernate. Число изменившихся записей не ограничено, поэтому
+ * событие не содержит ID: кэши очищаются, а индексы перестраиваются полностью
+ */
+public class CatalogReloadedEvent {
+
+}
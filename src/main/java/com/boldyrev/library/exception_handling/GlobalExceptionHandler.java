@@ -2,6 +2,7 @@ package com.boldyrev.library.exception_handling;
 
 import com.boldyrev.library.exceptions.DataNotFoundException;
 import com.boldyrev.library.exceptions.EntityNotFoundException;
+import com.boldyrev.library.exceptions.ServiceUnavailableException;
 import com.boldyrev.library.exceptions.ValidationException;
 import jakarta.validation.ConstraintViolationException;
 import java.time.LocalDateTime;
@@ -46,4 +47,11 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest()
             .body(new ErrorResponse(builder.toString(), LocalDateTime.now()));
     }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleException(ServiceUnavailableException e) {
+        log.warn(e.getMessage());
+        return new ResponseEntity<>(new ErrorResponse(e.getMessage(), LocalDateTime.now()),
+            HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
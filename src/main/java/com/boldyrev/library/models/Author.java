@@ -9,7 +9,9 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -22,6 +24,9 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
 @Table(name = "t_authors")
@@ -29,11 +34,15 @@ import lombok.Setter;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "library.author")
+@DynamicUpdate
 public class Author {
 
     @Id
     @Column(name = "author_id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "t_authors_author_id_seq")
+    @SequenceGenerator(name = "t_authors_author_id_seq", sequenceName = "t_authors_author_id_seq",
+        allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -48,9 +57,14 @@ public class Author {
     @Column(name = "country")
     private String country;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "library.author.books")
     @ManyToMany(mappedBy = "authors", fetch = FetchType.LAZY)
     private Set<Book> books = new HashSet<>();
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     public void addBook(Book book) {
         books.add(book);
     }
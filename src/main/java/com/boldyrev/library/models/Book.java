@@ -9,7 +9,9 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -21,6 +23,9 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.validator.constraints.ISBN;
 
 @Entity
@@ -29,11 +34,15 @@ import org.hibernate.validator.constraints.ISBN;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "library.book")
+@DynamicUpdate
 public class Book {
 
     @Id
     @Column(name = "book_id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "t_books_book_id_seq")
+    @SequenceGenerator(name = "t_books_book_id_seq", sequenceName = "t_books_book_id_seq",
+        allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -54,6 +63,7 @@ public class Book {
     @Column(name = "publication_date")
     private LocalDate publicationDate;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "library.book.authors")
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "t_authors_books",
@@ -62,6 +72,10 @@ public class Book {
     )
     private Set<Author> authors = new HashSet<>();
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -1,8 +1,46 @@
 package com.boldyrev.library.repositories;
 
+import com.boldyrev.library.dto.AuthorView;
 import com.boldyrev.library.models.Author;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface AuthorsRepository extends JpaRepository<Author, Long> {
+public interface AuthorsRepository extends JpaRepository<Author, Long>, AuthorsRepositoryCustom {
 
+    /**
+     * Авторы читаются сразу в {@link AuthorView}, без сущностей и маппера
+     */
+    String VIEWS_QUERY = """
+        SELECT new com.boldyrev.library.dto.AuthorView(a.id, a.name, a.birthDate, a.country,
+            a.version)
+        FROM Author a
+        """;
+
+    @Query(value = VIEWS_QUERY, countQuery = "SELECT count(a) FROM Author a")
+    Page<AuthorView> findAllViews(Pageable pageable);
+
+    @Query(VIEWS_QUERY)
+    Slice<AuthorView> findAllViewsAsSlice(Pageable pageable);
+
+    @Query(VIEWS_QUERY)
+    List<AuthorView> findFirstViews(Pageable pageable);
+
+    @Query("SELECT a FROM Author a WHERE a.id > :afterId ORDER BY a.id")
+    List<Author> findAllByIdAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query(VIEWS_QUERY + "WHERE (a.name, a.id) > (:afterName, :afterId)")
+    List<AuthorView> findViewsAfter(@Param("afterName") String afterName,
+        @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT a.id FROM Author a WHERE a.id IN :ids")
+    List<Long> findIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT b.id FROM Author a JOIN a.books b WHERE a.id = :id")
+    List<Long> findBookIdsById(@Param("id") Long id);
 }
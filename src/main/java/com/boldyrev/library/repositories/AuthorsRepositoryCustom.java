@@ -0,0 +1,28 @@
+package com.boldyrev.library.repositories;
+
+import com.boldyrev.library.dto.AuthorView;
+import com.boldyrev.library.models.Author;
+import java.util.List;
+
+public interface AuthorsRepositoryCustom {
+
+    /**
+     * Оценка количества авторов по статистике PostgreSQL (pg_class.reltuples)
+     *
+     * @return оценка или -1, если статистика для таблицы еще не собрана
+     */
+    long estimateCount();
+
+    /**
+     * Добавляет авторов пакетными INSERT в обход Hibernate. ID выделяются блоками из
+     * последовательности t_authors заранее и записываются в переданных авторов
+     */
+    void insertAll(List<Author> authors);
+
+    /**
+     * Загружает авторов по ID через кэш второго уровня, отсутствующих в кэше - одним запросом
+     *
+     * @return авторы в порядке ids, на месте несуществующих - null
+     */
+    List<AuthorView> findViewsByIdIn(List<Long> ids);
+}
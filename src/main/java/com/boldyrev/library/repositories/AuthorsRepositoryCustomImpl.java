@@ -0,0 +1,64 @@
+package com.boldyrev.library.repositories;
+
+import com.boldyrev.library.dto.AuthorView;
+import com.boldyrev.library.models.Author;
+import jakarta.persistence.EntityManager;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class AuthorsRepositoryCustomImpl implements AuthorsRepositoryCustom {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Autowired
+    public AuthorsRepositoryCustomImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public long estimateCount() {
+        Long estimate = jdbcTemplate.queryForObject(
+            "SELECT reltuples::bigint FROM pg_class WHERE oid = 't_authors'::regclass", Long.class);
+
+        return estimate == null ? -1 : estimate;
+    }
+
+    @Override
+    public void insertAll(List<Author> authors) {
+        List<Long> ids = SequenceIds.allocate(jdbcTemplate, "t_authors", "author_id", authors.size());
+        for (int i = 0; i < authors.size(); i++) {
+            authors.get(i).setId(ids.get(i));
+            authors.get(i).setVersion(0L);
+        }
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO t_authors (author_id, name, birth_date, country, version)
+                VALUES (?, ?, ?, ?, ?)
+                """, authors, BATCH_SIZE,
+            (statement, author) -> {
+                statement.setLong(1, author.getId());
+                statement.setString(2, author.getName());
+                statement.setObject(3, author.getBirthDate());
+                statement.setString(4, author.getCountry());
+                statement.setLong(5, author.getVersion());
+            });
+    }
+
+    @Override
+    public List<AuthorView> findViewsByIdIn(List<Long> ids) {
+        return entityManager.unwrap(Session.class)
+            .byMultipleIds(Author.class)
+            .multiLoad(ids).stream()
+            .map(author -> author == null ? null : new AuthorView(author.getId(),
+                author.getName(), author.getBirthDate(), author.getCountry(),
+                author.getVersion()))
+            .toList();
+    }
+}
@@ -1,30 +1,110 @@
 package com.boldyrev.library.repositories;
 
 import com.boldyrev.library.models.Book;
-import java.util.Optional;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
-public interface BooksRepository extends JpaRepository<Book, Long> {
-
-    @Query("""
-        SELECT b 
-        FROM Book b 
-        JOIN FETCH b.authors a
-        WHERE UPPER(b.title) LIKE CONCAT('%', UPPER(?1), '%')
-            AND UPPER(b.ISBN) LIKE CONCAT('%', UPPER(?2), '%')
-            AND b.id IN(
-                SELECT DISTINCT b.id 
-                FROM Book b 
-                JOIN b.authors a 
-                WHERE UPPER(a.name) LIKE CONCAT('%', UPPER(?3), '%'))
-        """)
-    Page<Book> findByParameters(String title, String ISBN, String authorName, Pageable pageable);
-
-    @Override
-    @Query("SELECT b from Book b JOIN FETCH b.authors a JOIN FETCH a.books WHERE b.id = :id")
-    Optional<Book> findById(@Param("id") Long id);
+public interface BooksRepository extends JpaRepository<Book, Long>, BooksRepositoryCustom {
+
+    int STREAM_FETCH_SIZE = 1000;
+
+    /**
+     * Фильтр поиска книг. Единственный источник условия: из него строятся запросы поиска,
+     * оценка количества, удаление по фильтру и поиск реактивного сервера чтения. Значения
+     * подставляются в LIKE как есть (ESCAPE '')
+     */
+    String SEARCH_FILTER = """
+        library_fold(b.title) LIKE ('%' || library_fold(:title) || '%') ESCAPE ''
+            AND b.isbn LIKE ('%' || upper(:isbn) || '%') ESCAPE ''
+            AND EXISTS(
+                SELECT 1
+                FROM t_authors sa
+                JOIN t_authors_books sab ON sa.author_id = sab.author_id
+                WHERE sab.book_id = b.book_id
+                    AND library_fold(sa.name) LIKE ('%' || library_fold(:author) || '%')
+                        ESCAPE '')
+        """;
+
+    String SEARCH_IDS_SQL = "SELECT b.book_id FROM t_books b WHERE " + SEARCH_FILTER;
+
+    String SEARCH_COUNT_SQL = "SELECT count(*) FROM t_books b WHERE " + SEARCH_FILTER;
+
+    /**
+     * Порядок найденных книг задается в запросе: Pageable передается без сортировки
+     */
+    String SEARCH_ORDER = " ORDER BY b.title, b.book_id";
+
+    /**
+     * Строки книг с авторами без условия: по строке на автора книги, у книги без авторов поля
+     * автора пустые. Версия автора выбирается как author_version
+     */
+    String VIEWS_SELECT_SQL = """
+        SELECT b.book_id, b.title, b.isbn, b.num_pages, b.publication_date, b.version,
+            a.author_id, a.name, a.birth_date, a.country, a.version AS author_version
+        FROM t_books b
+        LEFT JOIN t_authors_books ab ON b.book_id = ab.book_id
+        LEFT JOIN t_authors a ON ab.author_id = a.author_id
+        """;
+
+    /**
+     * Книги с авторами по массиву ID :ids. Строки одной книги идут подряд, авторы книги - по
+     * возрастанию ID
+     */
+    String VIEWS_SQL = VIEWS_SELECT_SQL + """
+        WHERE b.book_id = ANY(:ids)
+        ORDER BY b.book_id, a.author_id
+        """;
+
+    @Query(value = SEARCH_IDS_SQL + SEARCH_ORDER, countQuery = SEARCH_COUNT_SQL,
+        nativeQuery = true)
+    Page<Long> findIdsByParameters(@Param("title") String title, @Param("isbn") String ISBN,
+        @Param("author") String authorName, Pageable pageable);
+
+    @Query(value = SEARCH_IDS_SQL + SEARCH_ORDER, nativeQuery = true)
+    Slice<Long> findIdsSliceByParameters(@Param("title") String title, @Param("isbn") String ISBN,
+        @Param("author") String authorName, Pageable pageable);
+
+    @Query(value = SEARCH_IDS_SQL + SEARCH_ORDER, nativeQuery = true)
+    List<Long> findFirstIdsByParameters(@Param("title") String title, @Param("isbn") String ISBN,
+        @Param("author") String authorName, Pageable pageable);
+
+    @Query(value = SEARCH_IDS_SQL + " AND (b.title, b.book_id) > (:afterTitle, :afterId)"
+        + SEARCH_ORDER, nativeQuery = true)
+    List<Long> findIdsByParametersAfter(@Param("title") String title, @Param("isbn") String ISBN,
+        @Param("author") String authorName, @Param("afterTitle") String afterTitle,
+        @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * ID книг по возрастанию, начиная после переданного. Постраничный обход без OFFSET: удаление
+     * книг во время обхода не сдвигает следующие страницы
+     */
+    @Query("SELECT b.id FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    List<Long> findIdsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Все книги по возрастанию ID через курсор базы данных: строки читаются порциями по
+     * {@link #STREAM_FETCH_SIZE}, а не загружаются в память целиком. Вызывается в транзакции,
+     * поток нужно закрыть
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAllBy();
+
+    @Query("SELECT b FROM Book b LEFT JOIN FETCH b.authors WHERE b.id IN :ids")
+    List<Book> findAllWithAuthorsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT b.ISBN FROM Book b WHERE b.ISBN IN :isbns")
+    List<String> findISBNsByISBNIn(@Param("isbns") Collection<String> ISBNs);
 }
@@ -0,0 +1,78 @@
+package com.boldyrev.library.repositories;
+
+import com.boldyrev.library.dto.BookView;
+import com.boldyrev.library.models.Book;
+import com.boldyrev.library.util.batch.UpsertStatus;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public interface BooksRepositoryCustom {
+
+    /**
+     * Оценка количества книг, подходящих под фильтр поиска, по плану запроса PostgreSQL
+     */
+    long estimateCountByParameters(String title, String ISBN, String authorName);
+
+    /**
+     * Книга с авторами для чтения. Книга, ее авторы и связь между ними берутся из кэша второго
+     * уровня, если они там есть, иначе загружаются одним запросом. Для изменения книги
+     * используется {@link BooksRepository#findById}, который не загружает коллекций
+     */
+    Optional<Book> findWithAuthorsById(long id);
+
+    /**
+     * Книги с авторами одним запросом без создания сущностей: строки книги и ее авторов
+     * собираются в одну {@link BookView} за один проход по результату
+     *
+     * @return найденные книги по возрастанию ID
+     */
+    List<BookView> findViewsByIdIn(Collection<Long> ids);
+
+    /**
+     * Добавляет книги и их связи с авторами пакетными INSERT в обход Hibernate. ID выделяются
+     * блоками из последовательности t_books заранее и записываются в переданные книги
+     */
+    void insertAll(List<Book> books);
+
+    /**
+     * Добавляет книги или обновляет книги с тем же ISBN одним INSERT ... ON CONFLICT. Совпадающие
+     * книги не перезаписываются. ID добавленных и найденных книг записываются в переданные книги.
+     * ISBN в пределах вызова не должны повторяться
+     *
+     * @return итог по каждой книге в порядке переданных; null (и ID null), если совпадающая книга
+     * добавлена параллельной транзакцией после начала запроса и ее ID не виден в снимке запроса
+     */
+    List<UpsertStatus> upsertAllByISBN(List<Book> books);
+
+    /**
+     * Приводит связи книг (ID заполнены) с авторами к переданным, записывая только отличия
+     *
+     * @return добавленные и удаленные связи: пары ID автора и ID книги
+     */
+    List<long[]> replaceAuthors(List<Book> books);
+
+    /**
+     * Удаляет книги одним DELETE, связи с авторами удаляются каскадно
+     *
+     * @return ID авторов по ID удаленных книг
+     */
+    Map<Long, Set<Long>> deleteAllByIdIn(Collection<Long> ids);
+
+    /**
+     * Удаляет одним DELETE книги, подходящие под фильтр поиска
+     * {@link BooksRepository#findIdsByParameters}
+     *
+     * @return ID авторов по ID удаленных книг
+     */
+    Map<Long, Set<Long>> deleteAllByParameters(String title, String ISBN, String authorName);
+
+    /**
+     * Удаляет одним DELETE все книги автора, в том числе написанные в соавторстве
+     *
+     * @return ID авторов по ID удаленных книг
+     */
+    Map<Long, Set<Long>> deleteAllByAuthorId(long authorId);
+}
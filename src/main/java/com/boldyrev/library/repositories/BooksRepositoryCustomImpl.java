@@ -0,0 +1,338 @@
+package com.boldyrev.library.repositories;
+
+import com.boldyrev.library.dto.AuthorView;
+import com.boldyrev.library.dto.BookView;
+import com.boldyrev.library.models.Book;
+
+import com.boldyrev.library.util.batch.UpsertStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.hibernate.Hibernate;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
+
+public class BooksRepositoryCustomImpl implements BooksRepositoryCustom {
+
+    /**
+     * Строка, совпадающая с переданной, не изменяется и не возвращается. xmax = 0 только у
+     * добавленной строки
+     */
+    /**
+     * Строки, не измененные DO UPDATE ... WHERE, RETURNING не возвращает, поэтому их ID читаются
+     * в том же запросе из снимка t_books. inserted для них - NULL
+     */
+    private static final String UPSERT_SQL = """
+        WITH input AS (
+            SELECT id, title, isbn, num_pages, publication_date
+            FROM unnest(?::bigint[], ?::text[], ?::text[], ?::integer[], ?::date[])
+                AS u(id, title, isbn, num_pages, publication_date)
+        ), upserted AS (
+            INSERT INTO t_books AS b (book_id, title, isbn, num_pages, publication_date, version)
+            SELECT id, title, isbn, num_pages, publication_date, 0
+            FROM input
+            ON CONFLICT (isbn) DO UPDATE
+            SET title = EXCLUDED.title,
+                num_pages = EXCLUDED.num_pages,
+                publication_date = EXCLUDED.publication_date,
+                version = b.version + 1
+            WHERE (b.title, b.num_pages, b.publication_date)
+                IS DISTINCT FROM (EXCLUDED.title, EXCLUDED.num_pages, EXCLUDED.publication_date)
+            RETURNING b.book_id, b.isbn, b.xmax = 0 AS inserted
+        )
+        SELECT book_id, isbn, inserted FROM upserted
+        UNION ALL
+        SELECT b.book_id, b.isbn, NULL
+        FROM input i
+            JOIN t_books b ON b.isbn = i.isbn
+        WHERE NOT EXISTS(SELECT 1 FROM upserted w WHERE w.isbn = i.isbn)
+        """;
+
+    private static final String REPLACE_AUTHORS_SQL = """
+        WITH wanted AS (
+            SELECT author_id, book_id
+            FROM unnest(?::bigint[], ?::bigint[]) AS w(author_id, book_id)
+        ), deleted AS (
+            DELETE FROM t_authors_books ab
+            WHERE ab.book_id = ANY(?::bigint[])
+                AND NOT EXISTS(
+                    SELECT 1
+                    FROM wanted w
+                    WHERE w.author_id = ab.author_id
+                        AND w.book_id = ab.book_id)
+            RETURNING ab.author_id, ab.book_id
+        ), inserted AS (
+            INSERT INTO t_authors_books (author_id, book_id)
+            SELECT author_id, book_id
+            FROM wanted
+            ON CONFLICT DO NOTHING
+            RETURNING author_id, book_id
+        )
+        SELECT author_id, book_id FROM deleted
+        UNION ALL
+        SELECT author_id, book_id FROM inserted
+        """;
+
+    /**
+     * Основной запрос видит данные до удаления, поэтому возвращает и каскадно удаленные связи
+     */
+    private static final String DELETE_SQL = """
+        WITH deleted AS (
+            DELETE FROM t_books b
+            WHERE %s
+            RETURNING b.book_id
+        )
+        SELECT d.book_id, ab.author_id
+        FROM deleted d
+        LEFT JOIN t_authors_books ab ON ab.book_id = d.book_id
+        """;
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    @Autowired
+    public BooksRepositoryCustomImpl(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+        EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<Book> findWithAuthorsById(long id) {
+        EntityGraph<Book> graph = entityManager.createEntityGraph(Book.class);
+        graph.addAttributeNodes("authors");
+
+        Book book = entityManager.find(Book.class, id,
+            Map.of(SpecHints.HINT_SPEC_FETCH_GRAPH, graph));
+        if (book != null) {
+            Hibernate.initialize(book.getAuthors());
+        }
+        return Optional.ofNullable(book);
+    }
+
+    @Override
+    public long estimateCountByParameters(String title, String ISBN, String authorName) {
+        String plan = namedJdbcTemplate.queryForObject(
+            "EXPLAIN (FORMAT JSON) " + BooksRepository.SEARCH_IDS_SQL,
+            filter(title, ISBN, authorName), String.class);
+
+        try {
+            return objectMapper.readTree(plan).path(0).path("Plan").path("Plan Rows").asLong();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Can't read query plan: " + plan, e);
+        }
+    }
+
+    @Override
+    public List<BookView> findViewsByIdIn(Collection<Long> ids) {
+        List<BookView> books = new ArrayList<>(ids.size());
+
+        namedJdbcTemplate.query(BooksRepository.VIEWS_SQL,
+            new MapSqlParameterSource("ids", idsArray(ids)),
+            (ResultSetExtractor<Void>) rows -> {
+                BookView book = null;
+                List<AuthorView> authors = null;
+
+                while (rows.next()) {
+                    long id = rows.getLong("book_id");
+                    if (book == null || book.id() != id) {
+                        authors = new ArrayList<>(1);
+                        book = new BookView(id, rows.getString("title"), rows.getString("isbn"),
+                            rows.getInt("num_pages"),
+                            rows.getObject("publication_date", LocalDate.class),
+                            Collections.unmodifiableList(authors), rows.getLong("version"));
+                        books.add(book);
+                    }
+
+                    long authorId = rows.getLong("author_id");
+                    if (!rows.wasNull()) {
+                        authors.add(new AuthorView(authorId, rows.getString("name"),
+                            rows.getObject("birth_date", LocalDate.class),
+                            rows.getString("country"), rows.getLong("author_version")));
+                    }
+                }
+                return null;
+            });
+
+        return books;
+    }
+
+    @Override
+    public void insertAll(List<Book> books) {
+        List<Long> ids = SequenceIds.allocate(jdbcTemplate, "t_books", "book_id", books.size());
+        for (int i = 0; i < books.size(); i++) {
+            books.get(i).setId(ids.get(i));
+            books.get(i).setVersion(0L);
+        }
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO t_books (book_id, title, isbn, num_pages, publication_date, version)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """, books, BATCH_SIZE,
+            (statement, book) -> {
+                statement.setLong(1, book.getId());
+                statement.setString(2, book.getTitle());
+                statement.setString(3, book.getISBN());
+                statement.setInt(4, book.getNumPages());
+                statement.setObject(5, book.getPublicationDate());
+                statement.setLong(6, book.getVersion());
+            });
+
+        List<long[]> links = books.stream()
+            .flatMap(book -> book.getAuthors().stream()
+                .map(author -> new long[]{author.getId(), book.getId()}))
+            .toList();
+
+        jdbcTemplate.batchUpdate("INSERT INTO t_authors_books (author_id, book_id) VALUES (?, ?)",
+            links, BATCH_SIZE,
+            (statement, link) -> {
+                statement.setLong(1, link[0]);
+                statement.setLong(2, link[1]);
+            });
+    }
+
+    @Override
+    public List<UpsertStatus> upsertAllByISBN(List<Book> books) {
+        List<Long> ids = SequenceIds.allocate(jdbcTemplate, "t_books", "book_id", books.size());
+        Map<String, Long> storedIds = new HashMap<>();
+        Map<String, UpsertStatus> upserted = new HashMap<>();
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPSERT_SQL);
+            statement.setArray(1, array(connection, "int8", ids));
+            statement.setArray(2, array(connection, "text",
+                books.stream().map(Book::getTitle).toList()));
+            statement.setArray(3, array(connection, "text",
+                books.stream().map(Book::getISBN).toList()));
+            statement.setArray(4, array(connection, "int4",
+                books.stream().map(Book::getNumPages).toList()));
+            statement.setArray(5, array(connection, "text",
+                books.stream().map(book -> book.getPublicationDate().toString()).toList()));
+            return statement;
+        }, (RowCallbackHandler) row -> {
+            boolean inserted = row.getBoolean("inserted");
+            UpsertStatus status = row.wasNull() ? UpsertStatus.UNCHANGED
+                : inserted ? UpsertStatus.INSERTED : UpsertStatus.UPDATED;
+            storedIds.put(row.getString("isbn"), row.getLong("book_id"));
+            upserted.put(row.getString("isbn"), status);
+        });
+
+        List<UpsertStatus> statuses = new ArrayList<>(books.size());
+        for (Book book : books) {
+            book.setId(storedIds.get(book.getISBN()));
+            statuses.add(upserted.get(book.getISBN()));
+        }
+        return statuses;
+    }
+
+    @Override
+    public List<long[]> replaceAuthors(List<Book> books) {
+        List<Long> authorIds = new ArrayList<>();
+        List<Long> bookIds = new ArrayList<>();
+        books.forEach(book -> book.getAuthors().forEach(author -> {
+            authorIds.add(author.getId());
+            bookIds.add(book.getId());
+        }));
+
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(REPLACE_AUTHORS_SQL);
+            statement.setArray(1, array(connection, "int8", authorIds));
+            statement.setArray(2, array(connection, "int8", bookIds));
+            statement.setArray(3, array(connection, "int8",
+                books.stream().map(Book::getId).toList()));
+            return statement;
+        }, (row, rowNum) -> new long[]{row.getLong("author_id"), row.getLong("book_id")});
+    }
+
+    @Override
+    public Map<Long, Set<Long>> deleteAllByIdIn(Collection<Long> ids) {
+        return delete("b.book_id = ANY(:ids)", new MapSqlParameterSource("ids", idsArray(ids)));
+    }
+
+    @Override
+    public Map<Long, Set<Long>> deleteAllByParameters(String title, String ISBN,
+        String authorName) {
+        return delete("b.book_id IN (" + BooksRepository.SEARCH_IDS_SQL + ")",
+            filter(title, ISBN, authorName));
+    }
+
+    @Override
+    public Map<Long, Set<Long>> deleteAllByAuthorId(long authorId) {
+        return delete("b.book_id IN (SELECT book_id FROM t_authors_books WHERE author_id = :id)",
+            new MapSqlParameterSource("id", authorId));
+    }
+
+    private Map<Long, Set<Long>> delete(String condition, SqlParameterSource parameters) {
+        Map<Long, Set<Long>> authorIds = new HashMap<>();
+
+        namedJdbcTemplate.query(String.format(DELETE_SQL, condition), parameters,
+            (RowCallbackHandler) row -> {
+                Set<Long> bookAuthorIds = authorIds.computeIfAbsent(row.getLong("book_id"),
+                    id -> new HashSet<>());
+                long authorId = row.getLong("author_id");
+                if (!row.wasNull()) {
+                    bookAuthorIds.add(authorId);
+                }
+            });
+
+        return authorIds;
+    }
+
+    /**
+     * Параметры {@link BooksRepository#SEARCH_FILTER}
+     */
+    private static SqlParameterSource filter(String title, String ISBN, String authorName) {
+        return new MapSqlParameterSource()
+            .addValue("title", title)
+            .addValue("isbn", ISBN)
+            .addValue("author", authorName);
+    }
+
+    /**
+     * Параметр - массив bigint для ANY(:ids), создается на соединении запроса
+     */
+    private static SqlParameterValue idsArray(Collection<Long> ids) {
+        return new SqlParameterValue(Types.ARRAY, new AbstractSqlTypeValue() {
+            @Override
+            protected Object createTypeValue(Connection connection, int sqlType,
+                String typeName) throws SQLException {
+                return array(connection, "int8", ids);
+            }
+        });
+    }
+
+    private static Array array(Connection connection, String type, Collection<?> values)
+        throws SQLException {
+        return connection.createArrayOf(type, values.toArray());
+    }
+}
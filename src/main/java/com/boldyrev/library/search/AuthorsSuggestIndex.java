@@ -0,0 +1,240 @@
+package com.boldyrev.library.search;
+
+import com.boldyrev.library.dto.AuthorView;
+import com.boldyrev.library.events.AuthorChangedEvent;
+import com.boldyrev.library.events.AuthorDeletedEvent;
+import com.boldyrev.library.events.AuthorsCreatedEvent;
+import com.boldyrev.library.events.CatalogReloadedEvent;
+import com.boldyrev.library.models.Author;
+import com.boldyrev.library.repositories.AuthorsRepository;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Подсказки имен авторов по префиксу из памяти. Индекс строится из t_authors при старте (или при
+ * первом запросе, если база была недоступна). Чтение идет без блокировок: изменения публикуют
+ * новый экземпляр {@link NamePrefixIndex}.
+ *
+ * <p>После коммита изменений авторов их ID только добавляются в очередь, индекс обновляется в
+ * отдельном потоке пачками: имена всех накопившихся авторов загружаются одним запросом, поэтому
+ * поток, выполнивший запись, не ждет обновления индекса. Перестроение и обновления
+ * сериализуются через ReentrantLock, а не synchronized: под блокировкой выполняются запросы к
+ * базе, и виртуальный поток не должен удерживать поток-носитель
+ */
+@Component
+@Slf4j
+public class AuthorsSuggestIndex implements DisposableBean {
+
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    private final AuthorsRepository authorsRepository;
+
+    /**
+     * null, пока индекс не построен
+     */
+    private volatile NamePrefixIndex index;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * ID авторов, измененных, добавленных или удаленных после последнего обновления индекса
+     */
+    private final Set<Long> pendingIds = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean updateScheduled = new AtomicBoolean();
+
+    private final ExecutorService updater = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "authors-suggest-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public AuthorsSuggestIndex(AuthorsRepository authorsRepository) {
+        this.authorsRepository = authorsRepository;
+    }
+
+    public List<AuthorView> suggest(String prefix, int limit) {
+        NamePrefixIndex current = index;
+        if (current == null) {
+            current = buildIfAbsent();
+        }
+
+        return current.find(prefix, limit).entrySet().stream()
+            .map(name -> new AuthorView(name.getKey(), name.getValue(), null, null, null))
+            .toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            buildIfAbsent();
+        } catch (DataAccessException e) {
+            log.error("Authors suggest index will be built on first request", e);
+        }
+    }
+
+    /**
+     * Полностью перестраивает индекс по данным из базы. Авторы читаются порциями по возрастанию
+     * ID без OFFSET. Изменения, закоммиченные до начала чтения, в нем уже учтены, поэтому очередь
+     * очищается; изменения, пришедшие во время чтения, применяются после построения
+     */
+    public void rebuild() {
+        lock.lock();
+        try {
+            pendingIds.clear();
+            Map<Long, String> names = new HashMap<>();
+
+            Pageable limit = PageRequest.of(0, REBUILD_CHUNK_SIZE);
+            List<Author> authors;
+            long lastId = 0;
+            do {
+                authors = authorsRepository.findAllByIdAfter(lastId, limit);
+                authors.forEach(author -> names.put(author.getId(), author.getName()));
+                if (!authors.isEmpty()) {
+                    lastId = authors.get(authors.size() - 1).getId();
+                }
+            } while (authors.size() == REBUILD_CHUNK_SIZE);
+
+            index = NamePrefixIndex.build(names);
+            log.debug("Authors suggest index rebuilt, {} names indexed", index.size());
+        } finally {
+            lock.unlock();
+        }
+
+        if (!pendingIds.isEmpty() && updateScheduled.compareAndSet(false, true)) {
+            updater.execute(this::applyPending);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        scheduleUpdate(List.of(event.getAuthorId()));
+    }
+
+    @TransactionalEventListener
+    public void onAuthorsCreated(AuthorsCreatedEvent event) {
+        scheduleUpdate(event.getAuthorIds());
+    }
+
+    /**
+     * Индекс проверяется под блокировкой: если он строится в момент события, то после построения
+     * перестраивается еще раз
+     */
+    @TransactionalEventListener
+    public void onCatalogReloaded(CatalogReloadedEvent event) {
+        updater.execute(() -> {
+            lock.lock();
+            try {
+                if (index != null) {
+                    rebuild();
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    @TransactionalEventListener
+    public void onAuthorDeleted(AuthorDeletedEvent event) {
+        scheduleUpdate(List.of(event.getAuthorId()));
+    }
+
+    /**
+     * Ждет применения изменений, поставленных в очередь до вызова
+     */
+    void awaitUpdates() throws InterruptedException, ExecutionException {
+        updater.submit(() -> {
+        }).get();
+    }
+
+    @Override
+    public void destroy() {
+        updater.shutdownNow();
+    }
+
+    /**
+     * Строит индекс, если его еще нет. Одновременные первые запросы ждут одного построения
+     */
+    private NamePrefixIndex buildIfAbsent() {
+        lock.lock();
+        try {
+            if (index == null) {
+                rebuild();
+            }
+            return index;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * ID добавляются в очередь и тогда, когда индекс еще не построен: если он строится в этот
+     * момент, {@link #rebuild()} применит их после построения
+     */
+    private void scheduleUpdate(Collection<Long> authorIds) {
+        if (authorIds.isEmpty()) {
+            return;
+        }
+
+        pendingIds.addAll(authorIds);
+        if (index != null && updateScheduled.compareAndSet(false, true)) {
+            updater.execute(this::applyPending);
+        }
+    }
+
+    /**
+     * Приводит имена накопившихся авторов к данным в базе: найденные добавляются или заменяются,
+     * отсутствующие удаляются. Пока индекс не построен, ID остаются в очереди
+     */
+    private void applyPending() {
+        updateScheduled.set(false);
+
+        lock.lock();
+        try {
+            if (index == null) {
+                return;
+            }
+
+            Set<Long> authorIds = new HashSet<>(pendingIds);
+            pendingIds.removeAll(authorIds);
+            if (authorIds.isEmpty()) {
+                return;
+            }
+
+            Map<Long, String> names = new HashMap<>();
+            authorsRepository.findAllById(authorIds)
+                .forEach(author -> names.put(author.getId(), author.getName()));
+
+            Set<Long> deletedIds = new HashSet<>(authorIds);
+            deletedIds.removeAll(names.keySet());
+
+            index = index.withoutAll(deletedIds).withAll(names);
+        } catch (DataAccessException e) {
+            log.error("Can't update authors suggest index, it will be rebuilt", e);
+            index = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
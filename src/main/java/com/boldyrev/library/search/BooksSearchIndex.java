@@ -0,0 +1,457 @@
+package com.boldyrev.library.search;
+
+import com.boldyrev.library.events.AuthorChangedEvent;
+import com.boldyrev.library.events.AuthorDeletedEvent;
+import com.boldyrev.library.events.BookChangedEvent;
+import com.boldyrev.library.events.BookDeletedEvent;
+import com.boldyrev.library.events.BooksCreatedEvent;
+import com.boldyrev.library.events.BooksDeletedEvent;
+import com.boldyrev.library.events.BooksUpdatedEvent;
+import com.boldyrev.library.events.CatalogReloadedEvent;
+import com.boldyrev.library.models.Author;
+import com.boldyrev.library.models.Book;
+import com.boldyrev.library.repositories.BooksRepository;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ru.RussianAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Локальный Lucene-индекс книг (название, ISBN, имена авторов) для ранжированного поиска с
+ * учетом опечаток. Индекс обновляется после коммита изменений книг и авторов и может быть
+ * перестроен из базы данных при старте приложения.
+ *
+ * <p>После коммита ID измененных книг только добавляются в очередь, а книги загружаются и
+ * индексируются в отдельном потоке пачками, как в {@link AuthorsSuggestIndex}. Поток, выполнивший
+ * запись, не ждет индекса и не запрашивает второе соединение, пока его соединение еще не
+ * возвращено в пул.
+ *
+ * <p>Изменения индекса фиксируются на диске не чаще library.search.lucene.commit-interval и при
+ * остановке приложения, поэтому без перестроения при старте индекс не теряет обновлений
+ */
+@Component
+@ConditionalOnProperty(name = "library.search.lucene.enabled", havingValue = "true")
+@Slf4j
+public class BooksSearchIndex implements DisposableBean {
+
+    private static final String ID_FIELD = "id";
+    private static final String TITLE_FIELD = "title";
+    private static final String ISBN_FIELD = "isbn";
+    private static final String AUTHORS_FIELD = "authors";
+
+    private static final int REBUILD_CHUNK_SIZE = 500;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final BooksRepository booksRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean rebuildOnStartup;
+    private final long commitIntervalNanos;
+
+    private final Analyzer analyzer;
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    /**
+     * Сериализует перестроение и обновления индекса
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong lastCommit = new AtomicLong(System.nanoTime());
+
+    /**
+     * ID книг, измененных, добавленных или удаленных после последнего обновления индекса
+     */
+    private final Set<Long> pendingIds = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean updateScheduled = new AtomicBoolean();
+
+    private final ExecutorService updater = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "books-search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public BooksSearchIndex(BooksRepository booksRepository,
+        PlatformTransactionManager transactionManager,
+        @Value("${library.search.lucene.path:}") String path,
+        @Value("${library.search.lucene.rebuild-on-startup:true}") boolean rebuildOnStartup,
+        @Value("${library.search.lucene.commit-interval:10s}") Duration commitInterval)
+        throws IOException {
+        this.booksRepository = booksRepository;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.commitIntervalNanos = commitInterval.toNanos();
+
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+
+        this.analyzer = new PerFieldAnalyzerWrapper(new RussianAnalyzer(),
+            Map.of(ISBN_FIELD, new KeywordAnalyzer()));
+        this.directory = path.isBlank()
+            ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(path));
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    /**
+     * Ищет книги по индексу. Пустые фильтры не учитываются, название и имя автора ищутся с
+     * учетом морфологии и опечаток, ISBN - по подстроке
+     *
+     * @return страница ID книг, отсортированных по релевантности
+     */
+    public Page<Long> search(String title, String ISBN, String authorName, Pageable pageable) {
+        Query query = buildQuery(title, ISBN, authorName);
+        Sort sort = new Sort(SortField.FIELD_SCORE, new SortField(ID_FIELD, SortField.Type.LONG));
+        int limit = Math.toIntExact(pageable.getOffset() + pageable.getPageSize());
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopFieldCollector collector = TopFieldCollector.create(sort, limit,
+                    Integer.MAX_VALUE);
+                searcher.search(query, collector);
+                TopDocs topDocs = collector.topDocs((int) pageable.getOffset(),
+                    pageable.getPageSize());
+
+                StoredFields storedFields = searcher.storedFields();
+                List<Long> ids = new ArrayList<>(topDocs.scoreDocs.length);
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    ids.add(Long.valueOf(storedFields.document(scoreDoc.doc).get(ID_FIELD)));
+                }
+
+                return new PageImpl<>(ids, pageable, topDocs.totalHits.value);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Перестраивает индекс при старте, если это не отключено свойством
+     * library.search.lucene.rebuild-on-startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Полностью перестраивает индекс по данным из базы. Одновременно выполняется только одно
+     * перестроение
+     */
+    public void rebuild() {
+        lock.lock();
+        try {
+            writer.deleteAll();
+
+            Pageable limit = PageRequest.of(0, REBUILD_CHUNK_SIZE);
+            List<Long> ids;
+            long lastId = 0;
+            do {
+                ids = booksRepository.findIdsAfter(lastId, limit);
+                if (!ids.isEmpty()) {
+                    index(ids);
+                    lastId = ids.get(ids.size() - 1);
+                }
+            } while (ids.size() == REBUILD_CHUNK_SIZE);
+
+            commit();
+            searcherManager.maybeRefresh();
+            log.debug("Search index rebuilt, {} books indexed", writer.getDocStats().numDocs);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        scheduleUpdate(List.of(event.getBookId()));
+    }
+
+    @TransactionalEventListener
+    public void onBooksCreated(BooksCreatedEvent event) {
+        scheduleUpdate(event.getBookIds());
+    }
+
+    @TransactionalEventListener
+    public void onBooksUpdated(BooksUpdatedEvent event) {
+        scheduleUpdate(event.getBookIds());
+    }
+
+    @TransactionalEventListener
+    public void onCatalogReloaded(CatalogReloadedEvent event) {
+        updater.execute(this::rebuild);
+    }
+
+    @TransactionalEventListener
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        scheduleUpdate(event.getBookIds());
+    }
+
+    @TransactionalEventListener
+    public void onAuthorDeleted(AuthorDeletedEvent event) {
+        scheduleUpdate(event.getBookIds());
+    }
+
+    @TransactionalEventListener
+    public void onBookDeleted(BookDeletedEvent event) {
+        scheduleUpdate(List.of(event.getBookId()));
+    }
+
+    @TransactionalEventListener
+    public void onBooksDeleted(BooksDeletedEvent event) {
+        scheduleUpdate(event.getBookIds());
+    }
+
+    /**
+     * Ждет применения изменений, поставленных в очередь до вызова
+     */
+    void awaitUpdates() throws InterruptedException, ExecutionException {
+        updater.submit(() -> {
+        }).get();
+    }
+
+    /**
+     * Применяет изменения из очереди, фиксирует индекс на диске и закрывает его
+     */
+    @Override
+    public void destroy() throws IOException, InterruptedException {
+        updater.shutdown();
+        if (!updater.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Search index updates are not finished, unapplied changes are lost");
+        }
+        commit();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private void scheduleUpdate(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+
+        pendingIds.addAll(bookIds);
+        if (updateScheduled.compareAndSet(false, true)) {
+            updater.execute(this::applyPending);
+        }
+    }
+
+    /**
+     * Приводит документы накопившихся книг к данным в базе: найденные книги индексируются
+     * заново, отсутствующие удаляются из индекса. Если база недоступна, ID возвращаются в
+     * очередь и применяются со следующим изменением
+     */
+    private void applyPending() {
+        updateScheduled.set(false);
+        Set<Long> bookIds = new HashSet<>(pendingIds);
+        pendingIds.removeAll(bookIds);
+        if (bookIds.isEmpty()) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            Set<Long> deletedIds = new HashSet<>(bookIds);
+            deletedIds.removeAll(index(bookIds));
+            writer.deleteDocuments(deletedIds.stream()
+                .map(id -> new Term(ID_FIELD, id.toString()))
+                .toArray(Term[]::new));
+
+            searcherManager.maybeRefresh();
+            commitIfDue();
+        } catch (DataAccessException e) {
+            log.error("Can't update search index, books will be indexed with next change", e);
+            pendingIds.addAll(bookIds);
+        } catch (IOException e) {
+            log.error("Can't update search index", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Фиксирует изменения, если с прошлой фиксации прошло больше
+     * library.search.lucene.commit-interval. Фиксацию выполняет один из одновременно
+     * обновляющих индекс потоков
+     */
+    private void commitIfDue() throws IOException {
+        long last = lastCommit.get();
+        if (System.nanoTime() - last >= commitIntervalNanos
+            && lastCommit.compareAndSet(last, System.nanoTime())) {
+            writer.commit();
+        }
+    }
+
+    private void commit() throws IOException {
+        lastCommit.set(System.nanoTime());
+        writer.commit();
+    }
+
+    /**
+     * Загружает книги с авторами в транзакции только для чтения и заменяет их документы в
+     * индексе
+     *
+     * @return ID найденных книг
+     */
+    private Set<Long> index(Collection<Long> bookIds) throws IOException {
+        List<Book> books = transactionTemplate.execute(
+            status -> booksRepository.findAllWithAuthorsByIdIn(bookIds));
+
+        Set<Long> indexedIds = new HashSet<>(books.size());
+        for (Book book : books) {
+            writer.updateDocument(new Term(ID_FIELD, book.getId().toString()), toDocument(book));
+            indexedIds.add(book.getId());
+        }
+        return indexedIds;
+    }
+
+    private Document toDocument(Book book) {
+        Document document = new Document();
+        document.add(new StringField(ID_FIELD, book.getId().toString(), Store.YES));
+        document.add(new NumericDocValuesField(ID_FIELD, book.getId()));
+        document.add(new TextField(TITLE_FIELD, fold(book.getTitle()), Store.NO));
+        document.add(new StringField(ISBN_FIELD, book.getISBN(), Store.NO));
+        for (Author author : book.getAuthors()) {
+            document.add(new TextField(AUTHORS_FIELD, fold(author.getName()), Store.NO));
+        }
+        return document;
+    }
+
+    private Query buildQuery(String title, String ISBN, String authorName) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        boolean empty = true;
+
+        if (!title.isBlank()) {
+            query.add(buildTextQuery(TITLE_FIELD, title), Occur.MUST);
+            empty = false;
+        }
+        if (!ISBN.isBlank()) {
+            query.add(new WildcardQuery(new Term(ISBN_FIELD, "*" + ISBN + "*")), Occur.MUST);
+            empty = false;
+        }
+        if (!authorName.isBlank()) {
+            query.add(buildTextQuery(AUTHORS_FIELD, authorName), Occur.MUST);
+            empty = false;
+        }
+
+        return empty ? new MatchAllDocsQuery() : query.build();
+    }
+
+    /**
+     * Каждое слово фильтра должно совпасть точно (с большим весом) или с опечаткой
+     */
+    private Query buildTextQuery(String field, String text) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+
+        for (String token : analyze(field, text)) {
+            Term term = new Term(field, token);
+            query.add(new BooleanQuery.Builder()
+                .add(new BoostQuery(new TermQuery(term), 2), Occur.SHOULD)
+                .add(new FuzzyQuery(term, maxEdits(token), 1), Occur.SHOULD)
+                .build(), Occur.MUST);
+        }
+
+        return query.build();
+    }
+
+    private List<String> analyze(String field, String text) {
+        List<String> tokens = new ArrayList<>();
+
+        try (TokenStream stream = analyzer.tokenStream(field, fold(text))) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return tokens;
+    }
+
+    private static int maxEdits(String token) {
+        if (token.length() < 3) {
+            return 0;
+        }
+        return token.length() < 6 ? 1 : 2;
+    }
+
+    /**
+     * Ё и е не различаются, как и в поиске по базе данных (library_fold)
+     */
+    private static String fold(String value) {
+        return value.replace('ё', 'е').replace('Ё', 'Е');
+    }
+}
@@ -0,0 +1,276 @@
+package com.boldyrev.library.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Неизменяемый индекс имен для поиска по префиксу. Хранит приведенные к нижнему регистру имена
+ * и отсортированный массив позиций начала каждого слова в них (суффиксный массив, ограниченный
+ * началами слов). Поэтому префикс находит имя как с начала, так и с любого слова, а на каждую
+ * позицию тратится 8 байт без копирования строк.
+ *
+ * <p>Изменения создают новый экземпляр слиянием за O(n); замененные имена занимают прежние
+ * позиции, удаленные остаются в массиве имен до следующей полной перестройки.
+ */
+public final class NamePrefixIndex {
+
+    private final long[] ids;
+    private final String[] names;
+    private final String[] keys;
+
+    /**
+     * Позиции, упакованные в long: номер имени в старших 32 битах, смещение слова - в младших
+     */
+    private final long[] entries;
+
+    private final int removed;
+
+    private NamePrefixIndex(long[] ids, String[] names, String[] keys, long[] entries,
+        int removed) {
+        this.ids = ids;
+        this.names = names;
+        this.keys = keys;
+        this.entries = entries;
+        this.removed = removed;
+    }
+
+    /**
+     * Строит индекс по именам, ключ - ID
+     */
+    public static NamePrefixIndex build(Map<Long, String> namesById) {
+        int size = namesById.size();
+        long[] ids = new long[size];
+        String[] names = new String[size];
+        String[] keys = new String[size];
+        List<Long> entries = new ArrayList<>();
+
+        int slot = 0;
+        for (Map.Entry<Long, String> name : namesById.entrySet()) {
+            ids[slot] = name.getKey();
+            names[slot] = name.getValue();
+            keys[slot] = fold(name.getValue());
+            addEntries(entries, keys[slot], slot);
+            slot++;
+        }
+
+        entries.sort(entryComparator(keys));
+
+        return new NamePrefixIndex(ids, names, keys,
+            entries.stream().mapToLong(Long::longValue).toArray(), 0);
+    }
+
+    /**
+     * Возвращает имена, содержащие слово с заданным префиксом, в алфавитном порядке совпавших
+     * слов. Каждое имя возвращается один раз
+     *
+     * @return имена по ID
+     */
+    public Map<Long, String> find(String prefix, int limit) {
+        Map<Long, String> found = new LinkedHashMap<>();
+        String key = fold(prefix).strip();
+        if (key.isEmpty()) {
+            return found;
+        }
+
+        for (int i = lowerBound(key); i < entries.length && found.size() < limit; i++) {
+            int slot = slot(entries[i]);
+            if (!keys[slot].startsWith(key, offset(entries[i]))) {
+                break;
+            }
+            found.putIfAbsent(ids[slot], names[slot]);
+        }
+
+        return found;
+    }
+
+    public int size() {
+        return ids.length - removed;
+    }
+
+    /**
+     * Новый индекс с добавленным или замененным именем
+     */
+    public NamePrefixIndex with(long id, String name) {
+        return withAll(Map.of(id, name));
+    }
+
+    /**
+     * Новый индекс с добавленными или замененными именами. Замененное имя занимает прежнюю
+     * позицию, слоты заменяемых имен находятся за один проход, а новые позиции сливаются с
+     * имеющимися за один проход
+     */
+    public NamePrefixIndex withAll(Map<Long, String> namesById) {
+        if (namesById.isEmpty()) {
+            return this;
+        }
+
+        Map<Long, Integer> replacedSlots = new HashMap<>();
+        boolean[] replaced = new boolean[ids.length];
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (names[slot] != null && namesById.containsKey(ids[slot])) {
+                replacedSlots.put(ids[slot], slot);
+                replaced[slot] = true;
+            }
+        }
+
+        int size = ids.length + namesById.size() - replacedSlots.size();
+        long[] ids = Arrays.copyOf(this.ids, size);
+        String[] names = Arrays.copyOf(this.names, size);
+        String[] keys = Arrays.copyOf(this.keys, size);
+
+        List<Long> added = new ArrayList<>();
+        int next = this.ids.length;
+        for (Map.Entry<Long, String> name : namesById.entrySet()) {
+            Integer replacedSlot = replacedSlots.get(name.getKey());
+            int slot = replacedSlot != null ? replacedSlot : next++;
+            ids[slot] = name.getKey();
+            names[slot] = name.getValue();
+            keys[slot] = fold(name.getValue());
+            addEntries(added, keys[slot], slot);
+        }
+
+        Comparator<Long> comparator = entryComparator(keys);
+        added.sort(comparator);
+
+        long[] entries = new long[this.entries.length + added.size()];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < this.entries.length || j < added.size()) {
+            if (i < this.entries.length && replaced[slot(this.entries[i])]) {
+                i++;
+            } else if (j == added.size() || i < this.entries.length
+                && comparator.compare(this.entries[i], added.get(j)) <= 0) {
+                entries[k++] = this.entries[i++];
+            } else {
+                entries[k++] = added.get(j++);
+            }
+        }
+
+        return new NamePrefixIndex(ids, names, keys, Arrays.copyOf(entries, k), removed);
+    }
+
+    /**
+     * Новый индекс без имени с заданным ID
+     */
+    public NamePrefixIndex without(long id) {
+        return withoutAll(Set.of(id));
+    }
+
+    /**
+     * Новый индекс без имен с заданными ID: слоты находятся и позиции удаляются за один проход.
+     * Если удаленных имен больше половины, индекс перестраивается полностью
+     */
+    public NamePrefixIndex withoutAll(Collection<Long> removedIds) {
+        Set<Long> removedSet = new HashSet<>(removedIds);
+        boolean[] excluded = new boolean[ids.length];
+        int count = 0;
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (names[slot] != null && removedSet.contains(ids[slot])) {
+                excluded[slot] = true;
+                count++;
+            }
+        }
+        if (count == 0) {
+            return this;
+        }
+
+        if ((removed + count) * 2 > ids.length) {
+            return build(toMap(excluded));
+        }
+
+        String[] names = this.names.clone();
+        String[] keys = this.keys.clone();
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (excluded[slot]) {
+                names[slot] = null;
+                keys[slot] = null;
+            }
+        }
+
+        long[] entries = Arrays.stream(this.entries)
+            .filter(entry -> !excluded[slot(entry)])
+            .toArray();
+
+        return new NamePrefixIndex(ids, names, keys, entries, removed + count);
+    }
+
+    private Map<Long, String> toMap(boolean[] excluded) {
+        Map<Long, String> namesById = new LinkedHashMap<>();
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (!excluded[slot] && names[slot] != null) {
+                namesById.put(ids[slot], names[slot]);
+            }
+        }
+        return namesById;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(keys[slot(entries[mid])], offset(entries[mid]), key, 0) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static void addEntries(List<Long> entries, String key, int slot) {
+        for (int offset = 0; offset < key.length(); offset++) {
+            boolean wordStart = Character.isLetterOrDigit(key.charAt(offset))
+                && (offset == 0 || !Character.isLetterOrDigit(key.charAt(offset - 1)));
+            if (wordStart) {
+                entries.add((long) slot << 32 | offset);
+            }
+        }
+    }
+
+    private static Comparator<Long> entryComparator(String[] keys) {
+        return (a, b) -> {
+            int result = compare(keys[slot(a)], offset(a), keys[slot(b)], offset(b));
+            return result != 0 ? result : Integer.compare(slot(a), slot(b));
+        };
+    }
+
+    /**
+     * Сравнивает суффиксы строк без их копирования
+     */
+    private static int compare(String a, int aOffset, String b, int bOffset) {
+        int length = Math.min(a.length() - aOffset, b.length() - bOffset);
+        for (int i = 0; i < length; i++) {
+            int result = Character.compare(a.charAt(aOffset + i), b.charAt(bOffset + i));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(a.length() - aOffset, b.length() - bOffset);
+    }
+
+    private static int slot(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    private static int offset(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * Регистр и различие Ё/Е не учитываются, как и в поиске по базе данных (library_fold)
+     */
+    private static String fold(String value) {
+        return value.toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+}
@@ -1,15 +1,49 @@
 package com.boldyrev.library.services;
 
+import com.boldyrev.library.dto.AuthorView;
 import com.boldyrev.library.models.Author;
+import com.boldyrev.library.util.pagination.CountedPage;
+import com.boldyrev.library.util.batch.BatchItemResult;
+import com.boldyrev.library.util.pagination.KeysetPage;
+import java.util.List;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 public interface AuthorsService {
 
-    Page<Author> findAllByPage(int page, int size);
+    Author findById(long id);
+
+    /**
+     * Методы чтения списка авторов и подсказок возвращают {@link AuthorView}, без сущностей и
+     * маппера
+     */
+    Page<AuthorView> findAllByPage(int page, int size);
+
+    Slice<AuthorView> findSliceByPage(int page, int size);
+
+    CountedPage<AuthorView> findAllEstimated(int page, int size);
+
+    KeysetPage<AuthorView> findAllAfter(String cursor, int size);
+
+    List<AuthorView> suggest(String prefix, int size);
 
     Author save(Author author);
 
+    /**
+     * Сохраняет авторов транзакциями по library.batch.chunk-size элементов
+     *
+     * @return результаты в порядке переданных авторов
+     */
+    List<BatchItemResult> saveAll(List<Author> authors);
+
     Author updateById(long id, Author author);
 
+    /**
+     * Изменяет только переданные поля автора (не null)
+     *
+     * @return измененный автор
+     */
+    Author patchById(long id, Author author);
+
     void deleteById(long id);
 }
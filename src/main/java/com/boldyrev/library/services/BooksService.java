@@ -1,19 +1,93 @@
 package com.boldyrev.library.services;
 
+import com.boldyrev.library.dto.BookView;
 import com.boldyrev.library.models.Author;
 import com.boldyrev.library.models.Book;
+import com.boldyrev.library.util.batch.BatchItemResult;
+import com.boldyrev.library.util.pagination.CountedPage;
+import com.boldyrev.library.util.pagination.KeysetPage;
+import java.util.List;
 import java.util.Set;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 public interface BooksService {
 
-    Page<Book> search(String title, String ISBN, String authorName, int page, int size);
+    Book findById(long id);
+
+    /**
+     * Книга с авторами одним запросом-проекцией, без сущностей и маппера
+     */
+    BookView findViewById(long id);
+
+    /**
+     * Методы поиска читают найденную страницу книг запросом-проекцией сразу в {@link BookView},
+     * без сущностей и маппера
+     */
+    Page<BookView> search(String title, String ISBN, String authorName, int page, int size);
+
+    Slice<BookView> searchSlice(String title, String ISBN, String authorName, int page, int size);
+
+    CountedPage<BookView> searchEstimated(String title, String ISBN, String authorName, int page,
+        int size);
+
+    Page<BookView> searchRanked(String title, String ISBN, String authorName, int page, int size);
+
+    KeysetPage<BookView> searchAfter(String title, String ISBN, String authorName, String cursor,
+        int size);
 
     Book save(Book book);
 
+    /**
+     * Сохраняет книги транзакциями по library.batch.chunk-size элементов. Книги с уже
+     * существующим ISBN или несуществующими авторами не сохраняются
+     *
+     * @return результаты в порядке переданных книг
+     */
+    List<BatchItemResult> saveAll(List<Book> books);
+
+    /**
+     * Добавляет книги или обновляет книги с тем же ISBN (после приведения) транзакциями по
+     * library.batch.chunk-size элементов. Авторы найденных книг заменяются переданными. Книги с
+     * повторяющимся в пакете ISBN или несуществующими авторами не сохраняются
+     *
+     * @return результаты в порядке переданных книг с итогом: добавлена, обновлена или не
+     * изменилась
+     */
+    List<BatchItemResult> upsertAll(List<Book> books);
+
     Book updateById(long id, Book book);
 
+    /**
+     * Изменяет только переданные поля книги (не null). Если авторы не переданы, связи с ними не
+     * загружаются и не изменяются
+     *
+     * @return измененная книга
+     */
+    Book patchById(long id, Book book);
+
     Book updateAuthors(Book book, Set<Author> authors);
 
     void deleteById(long id);
+
+    /**
+     * Удаляет книги с переданными ID одним запросом
+     *
+     * @return количество удаленных книг
+     */
+    int deleteAllByIds(List<Long> ids);
+
+    /**
+     * Удаляет одним запросом книги, которые нашел бы {@link #search} с теми же фильтрами
+     *
+     * @return количество удаленных книг
+     */
+    int deleteAllByParameters(String title, String ISBN, String authorName);
+
+    /**
+     * Удаляет одним запросом все книги автора, в том числе написанные в соавторстве
+     *
+     * @return количество удаленных книг
+     */
+    int deleteAllByAuthorId(long authorId);
 }
@@ -1,33 +1,95 @@
 package com.boldyrev.library.services.impl;
 
+import com.boldyrev.library.cache.AuthorPageCache;
+import com.boldyrev.library.dto.AuthorView;
+import com.boldyrev.library.events.AuthorChangedEvent;
+import com.boldyrev.library.events.AuthorDeletedEvent;
+import com.boldyrev.library.events.AuthorsCreatedEvent;
 import com.boldyrev.library.exceptions.EntityNotFoundException;
 import com.boldyrev.library.models.Author;
 import com.boldyrev.library.repositories.AuthorsRepository;
+import com.boldyrev.library.search.AuthorsSuggestIndex;
 import com.boldyrev.library.services.AuthorsService;
+import com.boldyrev.library.util.batch.BatchItemResult;
+import com.boldyrev.library.util.pagination.CountedPage;
+import com.boldyrev.library.util.pagination.KeysetCursor;
+import com.boldyrev.library.util.pagination.KeysetPage;
 import com.boldyrev.library.util.validators.PageValidator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
+@Slf4j
 public class AuthorsServiceImpl implements AuthorsService {
 
     private final AuthorsRepository authorsRepository;
     private final PageValidator pageValidator;
+    private final AuthorsSuggestIndex suggestIndex;
+    private final AuthorPageCache authorPageCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final long exactCountThreshold;
+    private final int batchChunkSize;
 
     @Autowired
-    public AuthorsServiceImpl(AuthorsRepository authorsRepository, PageValidator pageValidator) {
+    public AuthorsServiceImpl(AuthorsRepository authorsRepository, PageValidator pageValidator,
+        AuthorsSuggestIndex suggestIndex, AuthorPageCache authorPageCache,
+        ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+        @Value("${library.pagination.exact-count-threshold:1000}") long exactCountThreshold,
+        @Value("${library.batch.chunk-size:500}") int batchChunkSize) {
         this.authorsRepository = authorsRepository;
         this.pageValidator = pageValidator;
+        this.suggestIndex = suggestIndex;
+        this.authorPageCache = authorPageCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.exactCountThreshold = exactCountThreshold;
+        this.batchChunkSize = batchChunkSize;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<Author> findAllByPage(int page, int size) {
-        Page<Author> authors = authorsRepository.findAll(
+    public Author findById(long id) {
+        return authorsRepository.findById(id)
+            .orElseThrow(() -> new EntityNotFoundException(
+                String.format("Author with id=%d not found", id)));
+    }
+
+    /**
+     * Первые страницы (их количество задается library.cache.author-pages) строятся по ID из
+     * {@link AuthorPageCache} без запроса страницы и общего количества
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<AuthorView> findAllByPage(int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("name"));
+        Page<AuthorView> authors = authorPageCache.get(pageable,
+            () -> authorsRepository.findAllViews(pageable), authorsRepository::findViewsByIdIn);
+
+        pageValidator.validate(authors, null);
+
+        return authors;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<AuthorView> findSliceByPage(int page, int size) {
+        Slice<AuthorView> authors = authorsRepository.findAllViewsAsSlice(
             PageRequest.of(page, size, Sort.by("name")));
 
         pageValidator.validate(authors, null);
@@ -35,10 +97,67 @@ public class AuthorsServiceImpl implements AuthorsService {
         return authors;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CountedPage<AuthorView> findAllEstimated(int page, int size) {
+        long estimate = authorsRepository.estimateCount();
+
+        if (estimate <= exactCountThreshold) {
+            return CountedPage.exact(findAllByPage(page, size));
+        }
+
+        return CountedPage.estimated(findSliceByPage(page, size), estimate);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<AuthorView> findAllAfter(String cursor, int size) {
+        Pageable limit = PageRequest.of(0, size + 1, Sort.by("name", "id"));
+        List<AuthorView> authors;
+
+        if (cursor.isEmpty()) {
+            authors = authorsRepository.findFirstViews(limit);
+            pageValidator.validate(authors, null);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            authors = authorsRepository.findViewsAfter(after.getKey(), after.getId(), limit);
+        }
+
+        if (authors.size() <= size) {
+            return new KeysetPage<>(authors, size, null);
+        }
+
+        authors = authors.subList(0, size);
+        AuthorView last = authors.get(size - 1);
+        return new KeysetPage<>(authors, size, KeysetCursor.encode(last.name(), last.id()));
+    }
+
+    @Override
+    public List<AuthorView> suggest(String prefix, int size) {
+        return suggestIndex.suggest(prefix, size);
+    }
+
     @Override
     @Transactional
     public Author save(Author author) {
-        return authorsRepository.save(author);
+        Author savedAuthor = authorsRepository.save(author);
+
+        eventPublisher.publishEvent(new AuthorChangedEvent(savedAuthor.getId(), List.of()));
+
+        return savedAuthor;
+    }
+
+    @Override
+    public List<BatchItemResult> saveAll(List<Author> authors) {
+        List<BatchItemResult> results = new ArrayList<>(authors.size());
+
+        for (int from = 0; from < authors.size(); from += batchChunkSize) {
+            List<Author> chunk = authors.subList(from,
+                Math.min(from + batchChunkSize, authors.size()));
+            results.addAll(saveChunk(chunk, from));
+        }
+
+        return results;
     }
 
     @Override
@@ -52,12 +171,64 @@ public class AuthorsServiceImpl implements AuthorsService {
         storedAuthor.setBirthDate(author.getBirthDate());
         storedAuthor.setCountry(author.getCountry());
 
+        eventPublisher.publishEvent(
+            new AuthorChangedEvent(id, authorsRepository.findBookIdsById(id)));
+
+        return storedAuthor;
+    }
+
+    /**
+     * Сущность отмечена @DynamicUpdate, поэтому UPDATE содержит только изменившиеся столбцы
+     */
+    @Override
+    @Transactional
+    public Author patchById(long id, Author author) {
+        Author storedAuthor = authorsRepository.findById(id)
+            .orElseThrow(() -> new EntityNotFoundException(
+                String.format("Author with id=%d not found", id)));
+
+        if (author.getName() != null) {
+            storedAuthor.setName(author.getName());
+        }
+        if (author.getBirthDate() != null) {
+            storedAuthor.setBirthDate(author.getBirthDate());
+        }
+        if (author.getCountry() != null) {
+            storedAuthor.setCountry(author.getCountry());
+        }
+
+        eventPublisher.publishEvent(
+            new AuthorChangedEvent(id, authorsRepository.findBookIdsById(id)));
+
         return storedAuthor;
     }
 
     @Override
     @Transactional
     public void deleteById(long id) {
+        List<Long> bookIds = authorsRepository.findBookIdsById(id);
+
         authorsRepository.deleteById(id);
+        eventPublisher.publishEvent(new AuthorDeletedEvent(id, bookIds));
+    }
+
+    private List<BatchItemResult> saveChunk(List<Author> chunk, int offset) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                authorsRepository.insertAll(chunk);
+                eventPublisher.publishEvent(
+                    new AuthorsCreatedEvent(chunk.stream().map(Author::getId).toList()));
+            });
+        } catch (DataAccessException e) {
+            log.warn("Authors batch chunk starting at {} not saved", offset, e);
+            return IntStream.range(0, chunk.size())
+                .mapToObj(i -> BatchItemResult.failed(offset + i,
+                    "Author not saved: data is incorrect"))
+                .toList();
+        }
+
+        return IntStream.range(0, chunk.size())
+            .mapToObj(i -> BatchItemResult.saved(offset + i, chunk.get(i).getId()))
+            .toList();
     }
 }
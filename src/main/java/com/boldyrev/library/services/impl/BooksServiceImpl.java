@@ -1,48 +1,235 @@
 package com.boldyrev.library.services.impl;
 
+import com.boldyrev.library.cache.BookSearchCache;
+import com.boldyrev.library.dto.BookView;
+import com.boldyrev.library.events.BookChangedEvent;
+import com.boldyrev.library.events.BookDeletedEvent;
+import com.boldyrev.library.events.BooksCreatedEvent;
+import com.boldyrev.library.events.BooksDeletedEvent;
+import com.boldyrev.library.events.BooksUpdatedEvent;
 import com.boldyrev.library.exceptions.EntityNotFoundException;
 import com.boldyrev.library.models.Author;
 import com.boldyrev.library.models.Book;
+import com.boldyrev.library.repositories.AuthorsRepository;
 import com.boldyrev.library.repositories.BooksRepository;
+import com.boldyrev.library.search.BooksSearchIndex;
 import com.boldyrev.library.services.BooksService;
+import com.boldyrev.library.util.batch.BatchItemResult;
+import com.boldyrev.library.util.batch.UpsertStatus;
+import com.boldyrev.library.util.isbn.ISBNs;
+import com.boldyrev.library.util.pagination.CountedPage;
+import com.boldyrev.library.util.pagination.KeysetCursor;
+import com.boldyrev.library.util.pagination.KeysetPage;
 import com.boldyrev.library.util.validators.PageValidator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
+@Slf4j
 public class BooksServiceImpl implements BooksService {
 
+    /**
+     * Порядок книг в результатах поиска, его задает {@link BooksRepository#SEARCH_ORDER}
+     */
+    private static final Sort SEARCH_SORT = Sort.by("title", "id");
+
     private final BooksRepository booksRepository;
+    private final AuthorsRepository authorsRepository;
     private final PageValidator pageValidator;
+    private final ObjectProvider<BooksSearchIndex> searchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookSearchCache bookSearchCache;
+    private final TransactionTemplate transactionTemplate;
+    private final long exactCountThreshold;
+    private final int batchChunkSize;
 
     @Autowired
-    public BooksServiceImpl(BooksRepository booksRepository, PageValidator pageValidator) {
+    public BooksServiceImpl(BooksRepository booksRepository, AuthorsRepository authorsRepository,
+        PageValidator pageValidator, ObjectProvider<BooksSearchIndex> searchIndex,
+        ApplicationEventPublisher eventPublisher, BookSearchCache bookSearchCache,
+        PlatformTransactionManager transactionManager,
+        @Value("${library.pagination.exact-count-threshold:1000}") long exactCountThreshold,
+        @Value("${library.batch.chunk-size:500}") int batchChunkSize) {
         this.booksRepository = booksRepository;
+        this.authorsRepository = authorsRepository;
         this.pageValidator = pageValidator;
+        this.searchIndex = searchIndex;
+        this.eventPublisher = eventPublisher;
+        this.bookSearchCache = bookSearchCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.exactCountThreshold = exactCountThreshold;
+        this.batchChunkSize = batchChunkSize;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<Book> search(String title, String ISBN, String authorName, int page, int size) {
-        Page<Book> books = booksRepository.findByParameters(title, enrichISBN(ISBN), authorName,
-            PageRequest.of(page, size, Sort.by("title")));
+    public Book findById(long id) {
+        return booksRepository.findWithAuthorsById(id)
+            .orElseThrow(
+                () -> new EntityNotFoundException(String.format("Book with id=%d not found", id)));
+    }
+
+    @Override
+    public BookView findViewById(long id) {
+        return booksRepository.findViewsByIdIn(List.of(id)).stream()
+            .findFirst()
+            .orElseThrow(
+                () -> new EntityNotFoundException(String.format("Book with id=%d not found", id)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<BookView> search(String title, String ISBN, String authorName, int page, int size) {
+        String enrichedISBN = enrichISBN(ISBN);
+        Pageable pageable = PageRequest.of(page, size);
+        Page<Long> ids = bookSearchCache.get(title, enrichedISBN, authorName, pageable,
+            () -> booksRepository.findIdsByParameters(title, enrichedISBN, authorName, pageable));
+
+        pageValidator.validate(ids, new String[]{title, ISBN, authorName});
+
+        return new PageImpl<>(findViews(ids.getContent()), PageRequest.of(page, size, SEARCH_SORT),
+            ids.getTotalElements());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<BookView> searchSlice(String title, String ISBN, String authorName, int page,
+        int size) {
+        Slice<Long> ids = booksRepository.findIdsSliceByParameters(title, enrichISBN(ISBN),
+            authorName, PageRequest.of(page, size));
+
+        pageValidator.validate(ids, new String[]{title, ISBN, authorName});
+
+        return new SliceImpl<>(findViews(ids.getContent()), PageRequest.of(page, size, SEARCH_SORT),
+            ids.hasNext());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CountedPage<BookView> searchEstimated(String title, String ISBN, String authorName,
+        int page, int size) {
+        long estimate = booksRepository.estimateCountByParameters(title, enrichISBN(ISBN),
+            authorName);
+
+        if (estimate <= exactCountThreshold) {
+            return CountedPage.exact(search(title, ISBN, authorName, page, size));
+        }
+
+        return CountedPage.estimated(searchSlice(title, ISBN, authorName, page, size), estimate);
+    }
+
+    /**
+     * Поиск по Lucene-индексу с ранжированием по релевантности. Из базы загружается только
+     * найденная страница. Если индекс отключен, выполняется обычный поиск
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<BookView> searchRanked(String title, String ISBN, String authorName, int page,
+        int size) {
+        BooksSearchIndex index = searchIndex.getIfAvailable();
+        if (index == null) {
+            return search(title, ISBN, authorName, page, size);
+        }
+
+        Page<Long> ids = index.search(title, enrichISBN(ISBN), authorName,
+            PageRequest.of(page, size));
 
-        pageValidator.validate(books, new String[]{title, ISBN, authorName});
+        pageValidator.validate(ids, new String[]{title, ISBN, authorName});
 
-        return books;
+        return new PageImpl<>(findViews(ids.getContent()), ids.getPageable(),
+            ids.getTotalElements());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<BookView> searchAfter(String title, String ISBN, String authorName,
+        String cursor, int size) {
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Long> ids;
+
+        if (cursor.isEmpty()) {
+            ids = booksRepository.findFirstIdsByParameters(title, enrichISBN(ISBN), authorName,
+                limit);
+            pageValidator.validate(ids, new String[]{title, ISBN, authorName});
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            ids = booksRepository.findIdsByParametersAfter(title, enrichISBN(ISBN), authorName,
+                after.getKey(), after.getId(), limit);
+        }
+
+        boolean hasNext = ids.size() > size;
+        List<BookView> books = findViews(hasNext ? ids.subList(0, size) : ids);
+
+        if (!hasNext || books.isEmpty()) {
+            return new KeysetPage<>(books, size, null);
+        }
+
+        BookView last = books.get(books.size() - 1);
+        return new KeysetPage<>(books, size, KeysetCursor.encode(last.title(), last.id()));
     }
 
     @Override
     @Transactional
     public Book save(Book book) {
+        book.setAuthors(findAuthors(book.getAuthors()));
         book.getAuthors().forEach(a -> a.addBook(book));
         book.setISBN(enrichISBN(book.getISBN()));
-        return booksRepository.save(book);
+        Book savedBook = booksRepository.save(book);
+
+        eventPublisher.publishEvent(new BookChangedEvent(savedBook.getId()));
+
+        return savedBook;
+    }
+
+    @Override
+    public List<BatchItemResult> saveAll(List<Book> books) {
+        List<BatchItemResult> results = new ArrayList<>(books.size());
+        Set<String> requestISBNs = new HashSet<>();
+
+        for (int from = 0; from < books.size(); from += batchChunkSize) {
+            List<Book> chunk = books.subList(from, Math.min(from + batchChunkSize, books.size()));
+            results.addAll(saveChunk(chunk, from, requestISBNs));
+        }
+
+        return results;
+    }
+
+    @Override
+    public List<BatchItemResult> upsertAll(List<Book> books) {
+        List<BatchItemResult> results = new ArrayList<>(books.size());
+        Set<String> requestISBNs = new HashSet<>();
+
+        for (int from = 0; from < books.size(); from += batchChunkSize) {
+            List<Book> chunk = books.subList(from, Math.min(from + batchChunkSize, books.size()));
+            results.addAll(upsertChunk(chunk, from, requestISBNs));
+        }
+
+        return results;
     }
 
     @Override
@@ -59,6 +246,40 @@ public class BooksServiceImpl implements BooksService {
 
         updateAuthors(storedBook, book.getAuthors());
 
+        eventPublisher.publishEvent(new BookChangedEvent(id));
+
+        return storedBook;
+    }
+
+    /**
+     * Сущность отмечена @DynamicUpdate, поэтому UPDATE содержит только изменившиеся столбцы, а
+     * если ни одно поле не изменилось, UPDATE не выполняется
+     */
+    @Override
+    @Transactional
+    public Book patchById(long id, Book book) {
+        Book storedBook = booksRepository.findById(id)
+            .orElseThrow(
+                () -> new EntityNotFoundException(String.format("Book with id=%d not found", id)));
+
+        if (book.getTitle() != null) {
+            storedBook.setTitle(book.getTitle());
+        }
+        if (book.getISBN() != null) {
+            storedBook.setISBN(enrichISBN(book.getISBN()));
+        }
+        if (book.getPublicationDate() != null) {
+            storedBook.setPublicationDate(book.getPublicationDate());
+        }
+        if (book.getNumPages() != null) {
+            storedBook.setNumPages(book.getNumPages());
+        }
+        if (book.getAuthors() != null) {
+            updateAuthors(storedBook, book.getAuthors());
+        }
+
+        eventPublisher.publishEvent(new BookChangedEvent(id));
+
         return storedBook;
     }
 
@@ -67,21 +288,301 @@ public class BooksServiceImpl implements BooksService {
     public void deleteById(long id) {
 
         booksRepository.deleteById(id);
+        eventPublisher.publishEvent(new BookDeletedEvent(id));
+    }
+
+    @Override
+    @Transactional
+    public int deleteAllByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return publishDeleteEvent(booksRepository.deleteAllByIdIn(ids));
+    }
+
+    @Override
+    @Transactional
+    public int deleteAllByParameters(String title, String ISBN, String authorName) {
+        return publishDeleteEvent(
+            booksRepository.deleteAllByParameters(title, enrichISBN(ISBN), authorName));
+    }
+
+    @Override
+    @Transactional
+    public int deleteAllByAuthorId(long authorId) {
+        if (!authorsRepository.existsById(authorId)) {
+            throw new EntityNotFoundException(
+                String.format("Author with id=%d not found", authorId));
+        }
+        return publishDeleteEvent(booksRepository.deleteAllByAuthorId(authorId));
     }
 
+    /**
+     * Изменяет коллекцию авторов книги на месте, поэтому Hibernate удаляет и добавляет только
+     * изменившиеся связи в t_authors_books. Авторы сравниваются по ID, загружаются только
+     * добавляемые авторы, а их коллекции книг не читаются: кэш этих коллекций сбрасывается
+     * Hibernate (hibernate.cache.auto_evict_collection_cache)
+     */
+    @Override
     @Transactional
     public Book updateAuthors(Book book, Set<Author> authors) {
+        Set<Long> ids = authors.stream()
+            .map(Author::getId)
+            .collect(Collectors.toSet());
         Set<Author> currentAuthors = book.getAuthors();
-        if (!authors.equals(currentAuthors)) {
-            currentAuthors.forEach(a -> a.removeBook(book));
-            currentAuthors.clear();
-            book.setAuthors(authors);
+
+        currentAuthors.removeIf(author -> !ids.contains(author.getId()));
+        currentAuthors.forEach(author -> ids.remove(author.getId()));
+
+        if (!ids.isEmpty()) {
+            currentAuthors.addAll(findAuthors(authors.stream()
+                .filter(author -> ids.contains(author.getId()))
+                .collect(Collectors.toSet())));
         }
         return book;
     }
 
+    /**
+     * Сохраняет часть пакета в одной транзакции. Книги, которые нарушили бы ограничения базы
+     * данных (повтор ISBN, несуществующий автор), отклоняются заранее, чтобы ошибка одной книги не
+     * откатывала остальные
+     *
+     * @param offset позиция первой книги части в пакете
+     * @param requestISBNs ISBN книг пакета, принятых к сохранению ранее
+     */
+    private List<BatchItemResult> saveChunk(List<Book> chunk, int offset,
+        Set<String> requestISBNs) {
+        chunk.forEach(book -> book.setISBN(enrichISBN(book.getISBN())));
+        Map<Integer, String> errors = new HashMap<>();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<String> storedISBNs = new HashSet<>(booksRepository.findISBNsByISBNIn(
+                    chunk.stream().map(Book::getISBN).toList()));
+                Set<Long> authorIds = new HashSet<>(authorsRepository.findIdsByIdIn(
+                    chunk.stream()
+                        .flatMap(book -> book.getAuthors().stream())
+                        .map(Author::getId)
+                        .collect(Collectors.toSet())));
+
+                List<Book> accepted = new ArrayList<>(chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    Book book = chunk.get(i);
+                    Set<Long> bookAuthorIds = book.getAuthors().stream()
+                        .map(Author::getId)
+                        .collect(Collectors.toSet());
+
+                    if (storedISBNs.contains(book.getISBN())
+                        || !requestISBNs.add(book.getISBN())) {
+                        errors.put(i, String.format("Book not saved: ISBN %s already exists",
+                            book.getISBN()));
+                    } else if (!authorIds.containsAll(bookAuthorIds)) {
+                        errors.put(i, String.format(
+                            "Book not saved: some of authors with ids=%s not found",
+                            bookAuthorIds));
+                    } else {
+                        accepted.add(book);
+                    }
+                }
+
+                if (!accepted.isEmpty()) {
+                    booksRepository.insertAll(accepted);
+                    eventPublisher.publishEvent(new BooksCreatedEvent(
+                        accepted.stream().map(Book::getId).toList(),
+                        accepted.stream()
+                            .flatMap(book -> book.getAuthors().stream())
+                            .map(Author::getId)
+                            .distinct()
+                            .toList()));
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("Books batch chunk starting at {} not saved", offset, e);
+            return IntStream.range(0, chunk.size())
+                .mapToObj(i -> BatchItemResult.failed(offset + i, errors.getOrDefault(i,
+                    "Book not saved: data is incorrect. Check id's and other values")))
+                .toList();
+        }
+
+        return IntStream.range(0, chunk.size())
+            .mapToObj(i -> errors.containsKey(i)
+                ? BatchItemResult.failed(offset + i, errors.get(i))
+                : BatchItemResult.saved(offset + i, chunk.get(i).getId()))
+            .toList();
+    }
+
+    /**
+     * Сохраняет часть пакета по ISBN одним INSERT ... ON CONFLICT в одной транзакции. Повтор ISBN
+     * в пакете и несуществующие авторы отклоняются заранее, как и в {@link #saveChunk}
+     * Книга, ID которой запрос не вернул (совпадающую книгу добавила параллельная транзакция),
+     * отклоняется
+     *
+     * @param offset позиция первой книги части в пакете
+     * @param requestISBNs ISBN книг пакета, принятых к сохранению ранее
+     */
+    private List<BatchItemResult> upsertChunk(List<Book> chunk, int offset,
+        Set<String> requestISBNs) {
+        chunk.forEach(book -> book.setISBN(enrichISBN(book.getISBN())));
+        Map<Integer, String> errors = new HashMap<>();
+        Map<Integer, UpsertStatus> statuses = new HashMap<>();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<Long> authorIds = new HashSet<>(authorsRepository.findIdsByIdIn(
+                    chunk.stream()
+                        .flatMap(book -> book.getAuthors().stream())
+                        .map(Author::getId)
+                        .collect(Collectors.toSet())));
+
+                List<Integer> accepted = new ArrayList<>(chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    Book book = chunk.get(i);
+                    Set<Long> bookAuthorIds = book.getAuthors().stream()
+                        .map(Author::getId)
+                        .collect(Collectors.toSet());
+
+                    if (!requestISBNs.add(book.getISBN())) {
+                        errors.put(i, String.format(
+                            "Book not saved: ISBN %s is repeated in request", book.getISBN()));
+                    } else if (!authorIds.containsAll(bookAuthorIds)) {
+                        errors.put(i, String.format(
+                            "Book not saved: some of authors with ids=%s not found",
+                            bookAuthorIds));
+                    } else {
+                        accepted.add(i);
+                    }
+                }
+
+                if (accepted.isEmpty()) {
+                    return;
+                }
+
+                List<UpsertStatus> upserted = booksRepository.upsertAllByISBN(
+                    accepted.stream().map(chunk::get).toList());
+                List<Integer> stored = new ArrayList<>(accepted.size());
+                for (int i = 0; i < accepted.size(); i++) {
+                    if (upserted.get(i) == null) {
+                        errors.put(accepted.get(i), String.format(
+                            "Book not saved: book with ISBN %s is being saved concurrently",
+                            chunk.get(accepted.get(i)).getISBN()));
+                    } else {
+                        statuses.put(accepted.get(i), upserted.get(i));
+                        stored.add(accepted.get(i));
+                    }
+                }
+
+                if (stored.isEmpty()) {
+                    return;
+                }
+
+                List<Book> books = stored.stream().map(chunk::get).toList();
+                List<long[]> changedLinks = booksRepository.replaceAuthors(books);
+                Set<Long> relinkedBookIds = changedLinks.stream()
+                    .map(link -> link[1])
+                    .collect(Collectors.toSet());
+
+                stored.forEach(index -> {
+                    if (statuses.get(index) == UpsertStatus.UNCHANGED
+                        && relinkedBookIds.contains(chunk.get(index).getId())) {
+                        statuses.put(index, UpsertStatus.UPDATED);
+                    }
+                });
+
+                publishUpsertEvents(books, stored.stream().map(statuses::get).toList(),
+                    changedLinks);
+            });
+        } catch (DataAccessException e) {
+            log.warn("Books upsert chunk starting at {} not saved", offset, e);
+            return IntStream.range(0, chunk.size())
+                .mapToObj(i -> BatchItemResult.failed(offset + i, errors.getOrDefault(i,
+                    "Book not saved: data is incorrect. Check id's and other values")))
+                .toList();
+        }
+
+        return IntStream.range(0, chunk.size())
+            .mapToObj(i -> errors.containsKey(i)
+                ? BatchItemResult.failed(offset + i, errors.get(i))
+                : BatchItemResult.upserted(offset + i, chunk.get(i).getId(), statuses.get(i)))
+            .toList();
+    }
+
+    /**
+     * Книги сохранены в обход Hibernate, поэтому кэши и индексы обновляются по событиям
+     */
+    private void publishUpsertEvents(List<Book> books, List<UpsertStatus> statuses,
+        List<long[]> changedLinks) {
+        List<Long> authorIds = changedLinks.stream()
+            .map(link -> link[0])
+            .distinct()
+            .toList();
+        List<Long> insertedIds = new ArrayList<>();
+        List<Long> updatedIds = new ArrayList<>();
+        for (int i = 0; i < books.size(); i++) {
+            if (statuses.get(i) == UpsertStatus.INSERTED) {
+                insertedIds.add(books.get(i).getId());
+            } else if (statuses.get(i) == UpsertStatus.UPDATED) {
+                updatedIds.add(books.get(i).getId());
+            }
+        }
+
+        if (!insertedIds.isEmpty()) {
+            eventPublisher.publishEvent(new BooksCreatedEvent(insertedIds, authorIds));
+        }
+        if (!updatedIds.isEmpty()) {
+            eventPublisher.publishEvent(new BooksUpdatedEvent(updatedIds, authorIds));
+        }
+    }
+
+    /**
+     * Книги удалены в обход Hibernate, поэтому кэши и индексы обновляются по событию
+     *
+     * @param authorIds ID авторов по ID удаленных книг
+     * @return количество удаленных книг
+     */
+    private int publishDeleteEvent(Map<Long, Set<Long>> authorIds) {
+        if (!authorIds.isEmpty()) {
+            eventPublisher.publishEvent(new BooksDeletedEvent(
+                List.copyOf(authorIds.keySet()),
+                authorIds.values().stream()
+                    .flatMap(Set::stream)
+                    .distinct()
+                    .toList()));
+        }
+        return authorIds.size();
+    }
+
+    /**
+     * Заменяет авторов из запроса (заполнен только ID) загруженными сущностями: у ссылки без
+     * версии Hibernate считает автора новым
+     */
+    private Set<Author> findAuthors(Set<Author> authors) {
+        Set<Long> ids = authors.stream()
+            .map(Author::getId)
+            .collect(Collectors.toSet());
+        List<Author> foundAuthors = authorsRepository.findAllById(ids);
+
+        if (foundAuthors.size() != ids.size()) {
+            throw new EntityNotFoundException(
+                String.format("Some of authors with ids=%s not found", ids));
+        }
+
+        return new HashSet<>(foundAuthors);
+    }
+
+    /**
+     * Загружает книги вместе с авторами одним запросом-проекцией, сохраняя порядок переданных ID
+     */
+    private List<BookView> findViews(List<Long> ids) {
+        Map<Long, BookView> books = booksRepository.findViewsByIdIn(ids).stream()
+            .collect(Collectors.toMap(BookView::id, Function.identity()));
+
+        return ids.stream()
+            .map(books::get)
+            .filter(Objects::nonNull)
+            .toList();
+    }
+
     private String enrichISBN(String ISBN) {
-        String nonDigitsPattern = "[^\\dX]";
-        return ISBN.replaceAll(nonDigitsPattern, "");
+        return ISBNs.enrich(ISBN);
     }
 }
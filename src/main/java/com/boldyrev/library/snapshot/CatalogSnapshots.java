@@ -0,0 +1,289 @@
+package com.boldyrev.library.snapshot;
+
+import com.boldyrev.library.cache.CatalogGeneration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Снимки каталога на локальном диске: книги с ID авторов и авторы в виде NDJSON, сжатого gzip,
+ * и manifest.json с количеством записей, размером и SHA-256 каждого файла.
+ *
+ * <p>Строки JSON формирует PostgreSQL, и они передаются через COPY TO STDOUT прямо в
+ * GZIPOutputStream, минуя сущности, маппер и Jackson. Обе выгрузки выполняются в одной
+ * транзакции REPEATABLE READ, поэтому файлы снимка согласованы между собой. Снимок собирается
+ * во временном каталоге и публикуется атомарным переименованием, файлы готового снимка не
+ * изменяются
+ */
+@Component
+@ConditionalOnProperty(name = "library.snapshot.enabled", havingValue = "true")
+@Slf4j
+public class CatalogSnapshots {
+
+    public static final String BOOKS_FILE = "books.ndjson.gz";
+    public static final String AUTHORS_FILE = "authors.ndjson.gz";
+    public static final String MANIFEST_FILE = "manifest.json";
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter
+        .ofPattern("yyyyMMdd'T'HHmmssSSS'Z'")
+        .withZone(ZoneOffset.UTC);
+
+    private static final String TEMP_PREFIX = ".tmp-";
+
+    /**
+     * CSV с управляющими символами в роли разделителя и кавычки выводит значение без изменений,
+     * в отличие от текстового формата COPY, который экранирует обратную косую черту
+     */
+    private static final String COPY_TO = " TO STDOUT (FORMAT csv, DELIMITER E'\\x01', "
+        + "QUOTE E'\\x02')";
+
+    private static final String BOOKS_SQL = """
+        COPY (
+            SELECT json_build_object(
+                'id', b.book_id,
+                'title', b.title,
+                'isbn', b.isbn,
+                'num_pages', b.num_pages,
+                'publication_date', b.publication_date,
+                'author_ids', coalesce(
+                    array_agg(ab.author_id ORDER BY ab.author_id)
+                        FILTER (WHERE ab.author_id IS NOT NULL), '{}'))
+            FROM t_books b
+            LEFT JOIN t_authors_books ab ON b.book_id = ab.book_id
+            GROUP BY b.book_id
+            ORDER BY b.book_id)
+        """ + COPY_TO;
+
+    private static final String AUTHORS_SQL = """
+        COPY (
+            SELECT json_build_object(
+                'id', author_id,
+                'name', name,
+                'birth_date', birth_date,
+                'country', country)
+            FROM t_authors
+            ORDER BY author_id)
+        """ + COPY_TO;
+
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final CatalogGeneration catalogGeneration;
+    private final Path root;
+    private final int keep;
+
+    private volatile Snapshot latest;
+    private final AtomicLong snapshotGeneration = new AtomicLong(-1);
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Autowired
+    public CatalogSnapshots(DataSource dataSource, PlatformTransactionManager transactionManager,
+        ObjectMapper objectMapper, CatalogGeneration catalogGeneration,
+        @Value("${library.snapshot.path:snapshots}") String path,
+        @Value("${library.snapshot.keep:3}") int keep) throws IOException {
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.catalogGeneration = catalogGeneration;
+        this.root = Files.createDirectories(Path.of(path));
+        this.keep = Math.max(keep, 1);
+
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.transactionTemplate.setReadOnly(true);
+
+        this.latest = findLatest().orElse(null);
+    }
+
+    /**
+     * Последний опубликованный снимок
+     */
+    public Optional<Snapshot> latest() {
+        return Optional.ofNullable(latest);
+    }
+
+    /**
+     * Создает первый снимок, если на диске еще нет ни одного
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void generateOnStartup() {
+        if (latest == null) {
+            generate();
+        }
+    }
+
+    /**
+     * Создает снимок по расписанию library.snapshot.cron, если каталог изменился после
+     * последнего снимка этого экземпляра приложения
+     */
+    @Scheduled(cron = "${library.snapshot.cron:0 0 3 * * *}")
+    public void generateIfChanged() {
+        if (latest == null || catalogGeneration.current() != snapshotGeneration.get()) {
+            generate();
+        }
+    }
+
+    /**
+     * Создает и публикует новый снимок, лишние старые снимки удаляются
+     *
+     * @return опубликованный снимок
+     */
+    public Snapshot generate() {
+        lock.lock();
+        try {
+            return publish();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Вызывается под lock: COPY выполняется долго, и synchronized удерживал бы поток-носитель
+     * виртуального потока
+     */
+    private Snapshot publish() {
+        long generation = catalogGeneration.current();
+        Instant createdAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        if (latest != null && !createdAt.isAfter(latest.getManifest().getCreatedAt())) {
+            createdAt = latest.getManifest().getCreatedAt().plusMillis(1);
+        }
+        Path temp = root.resolve(TEMP_PREFIX + NAME_FORMAT.format(createdAt));
+
+        try {
+            Files.createDirectories(temp);
+            List<SnapshotFile> files = transactionTemplate.execute(status -> {
+                Connection connection = DataSourceUtils.getConnection(dataSource);
+                return List.of(copy(connection, BOOKS_SQL, temp.resolve(BOOKS_FILE)),
+                    copy(connection, AUTHORS_SQL, temp.resolve(AUTHORS_FILE)));
+            });
+
+            SnapshotManifest manifest = new SnapshotManifest(createdAt, files);
+            objectMapper.writeValue(temp.resolve(MANIFEST_FILE).toFile(), manifest);
+
+            Path directory = Files.move(temp, root.resolve(NAME_FORMAT.format(createdAt)),
+                StandardCopyOption.ATOMIC_MOVE);
+            latest = new Snapshot(directory, manifest);
+            snapshotGeneration.set(generation);
+            log.info("Catalog snapshot {} created: {} books, {} authors", directory.getFileName(),
+                files.get(0).getRecords(), files.get(1).getRecords());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            delete(temp);
+        }
+
+        deleteOutdated();
+        return latest;
+    }
+
+    private SnapshotFile copy(Connection connection, String sql, Path file) {
+        MessageDigest digest = sha256();
+        long records;
+
+        try (OutputStream output = new GZIPOutputStream(new DigestOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(file)), digest))) {
+            records = connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Can't copy catalog into snapshot " + file, e);
+        }
+
+        try {
+            return new SnapshotFile(file.getFileName().toString(), records, Files.size(file),
+                HexFormat.of().formatHex(digest.digest()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Optional<Snapshot> findLatest() throws IOException {
+        List<Path> directories = snapshotDirectories();
+        for (int i = directories.size() - 1; i >= 0; i--) {
+            Path manifest = directories.get(i).resolve(MANIFEST_FILE);
+            if (Files.isRegularFile(manifest)) {
+                return Optional.of(new Snapshot(directories.get(i),
+                    objectMapper.readValue(manifest.toFile(), SnapshotManifest.class)));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void deleteOutdated() {
+        try {
+            List<Path> directories = snapshotDirectories();
+            for (Path directory : directories.subList(0,
+                Math.max(directories.size() - keep, 0))) {
+                delete(directory);
+            }
+        } catch (IOException e) {
+            log.warn("Can't delete outdated catalog snapshots", e);
+        }
+    }
+
+    /**
+     * Каталоги снимков от старых к новым. Имена каталогов - время создания, поэтому
+     * сортируются по времени
+     */
+    private List<Path> snapshotDirectories() throws IOException {
+        try (Stream<Path> paths = Files.list(root)) {
+            return paths
+                .filter(Files::isDirectory)
+                .filter(path -> !path.getFileName().toString().startsWith(TEMP_PREFIX))
+                .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                .toList();
+        }
+    }
+
+    private void delete(Path path) {
+        try {
+            FileSystemUtils.deleteRecursively(path);
+        } catch (IOException e) {
+            log.warn("Can't delete {}", path, e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.boldyrev.library.snapshot;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Готовый снимок каталога: каталог с файлами и их манифест. Файлы снимка не изменяются
+ */
+@Getter
+@AllArgsConstructor
+public class Snapshot {
+
+    private final Path directory;
+
+    private final SnapshotManifest manifest;
+
+    /**
+     * Файл снимка по имени. Ищется только среди файлов манифеста, поэтому имя из запроса не может
+     * указать на другой файл
+     */
+    public Optional<FileEntry> file(String name) {
+        return manifest.getFiles().stream()
+            .filter(file -> file.getName().equals(name))
+            .findFirst()
+            .map(file -> new FileEntry(directory.resolve(file.getName()), file));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class FileEntry {
+
+        private final Path path;
+
+        private final SnapshotFile file;
+    }
+}
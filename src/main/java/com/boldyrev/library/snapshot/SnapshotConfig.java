@@ -0,0 +1,16 @@
+package com.boldyrev.library.snapshot;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Снимки каталога создаются по расписанию library.snapshot.cron, если
+ * library.snapshot.enabled=true
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "library.snapshot.enabled", havingValue = "true")
+public class SnapshotConfig {
+
+}
@@ -0,0 +1,31 @@
+package com.boldyrev.library.snapshot;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Файл снимка каталога в манифесте
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnapshotFile {
+
+    private String name;
+
+    /**
+     * Количество строк NDJSON
+     */
+    private long records;
+
+    /**
+     * Размер сжатого файла
+     */
+    private long bytes;
+
+    /**
+     * SHA-256 сжатого файла в шестнадцатеричном виде
+     */
+    private String sha256;
+}
@@ -0,0 +1,22 @@
+package com.boldyrev.library.snapshot;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Instant;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Описание снимка каталога, хранится рядом с файлами снимка в manifest.json
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnapshotManifest {
+
+    @JsonProperty("created_at")
+    private Instant createdAt;
+
+    private List<SnapshotFile> files;
+}
@@ -0,0 +1,72 @@
+package com.boldyrev.library.util.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Результат обработки одного элемента пакетного запроса: ID сохраненной сущности или ошибка.
+ * Для сохранения по ISBN содержит и итог: добавлена, обновлена или не изменилась
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(Include.NON_NULL)
+public class BatchItemResult {
+
+    /**
+     * Позиция элемента в запросе
+     */
+    private final int index;
+
+    private final Long id;
+
+    private final String error;
+
+    private final UpsertStatus status;
+
+    public static BatchItemResult saved(int index, Long id) {
+        return new BatchItemResult(index, id, null, null);
+    }
+
+    public static BatchItemResult upserted(int index, Long id, UpsertStatus status) {
+        return new BatchItemResult(index, id, null, status);
+    }
+
+    public static BatchItemResult failed(int index, String error) {
+        return new BatchItemResult(index, null, error, null);
+    }
+
+    public boolean isSaved() {
+        return error == null;
+    }
+
+    /**
+     * Собирает результаты всего запроса
+     *
+     * @param size количество элементов в запросе
+     * @param errors ошибки валидации по позициям элементов
+     * @param saved результаты сохранения прошедших валидацию элементов в порядке запроса
+     */
+    public static List<BatchItemResult> merge(int size, Map<Integer, String> errors,
+        List<BatchItemResult> saved) {
+        List<BatchItemResult> results = new ArrayList<>(size);
+        Iterator<BatchItemResult> savedResults = saved.iterator();
+
+        for (int index = 0; index < size; index++) {
+            if (errors.containsKey(index)) {
+                results.add(failed(index, errors.get(index)));
+            } else {
+                BatchItemResult result = savedResults.next();
+                results.add(new BatchItemResult(index, result.getId(), result.getError(),
+                    result.getStatus()));
+            }
+        }
+
+        return results;
+    }
+}
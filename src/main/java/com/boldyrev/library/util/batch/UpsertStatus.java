@@ -0,0 +1,16 @@
+package com.boldyrev.library.util.batch;
+
+/**
+ * Итог сохранения записи по естественному ключу (ISBN книги)
+ */
+public enum UpsertStatus {
+
+    INSERTED,
+
+    UPDATED,
+
+    /**
+     * Запись уже совпадала с переданной и не изменялась
+     */
+    UNCHANGED
+}
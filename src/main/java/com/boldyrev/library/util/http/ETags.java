@@ -0,0 +1,71 @@
+package com.boldyrev.library.util.http;
+
+import com.boldyrev.library.dto.AuthorView;
+import com.boldyrev.library.dto.BookView;
+import com.boldyrev.library.models.Author;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Слабые ETag ответов, построенные по ID и версиям сущностей. Позволяют ответить 304 Not
+ * Modified до преобразования сущностей в DTO и сериализации
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * @param authors авторы в порядке ответа
+     * @param meta данные ответа, не зависящие от авторов (общее количество, курсор и т.д.)
+     */
+    public static String ofAuthors(Collection<Author> authors, Object... meta) {
+        StringBuilder state = new StringBuilder();
+        authors.forEach(author -> appendAuthor(state, author));
+        return weak(state, meta);
+    }
+
+    /**
+     * То же, что {@link #ofAuthors}, для авторов, прочитанных без сущностей
+     *
+     * @param authors авторы в порядке ответа
+     * @param meta данные ответа, не зависящие от авторов (общее количество, курсор и т.д.)
+     */
+    public static String ofAuthorViews(Collection<AuthorView> authors, Object... meta) {
+        StringBuilder state = new StringBuilder();
+        authors.forEach(author -> appendAuthor(state, author.id(), author.version()));
+        return weak(state, meta);
+    }
+
+    /**
+     * Учитывает и версии авторов книг, так как их данные входят в ответ
+     *
+     * @param books книги в порядке ответа, авторы упорядочены по ID
+     * @param meta данные ответа, не зависящие от книг (общее количество, курсор и т.д.)
+     */
+    public static String ofBookViews(Collection<BookView> books, Object... meta) {
+        StringBuilder state = new StringBuilder();
+        for (BookView book : books) {
+            state.append('b').append(book.id()).append(':').append(book.version()).append('[');
+            book.authors().forEach(author -> appendAuthor(state, author.id(), author.version()));
+            state.append(']');
+        }
+        return weak(state, meta);
+    }
+
+    private static void appendAuthor(StringBuilder state, Author author) {
+        appendAuthor(state, author.getId(), author.getVersion());
+    }
+
+    private static void appendAuthor(StringBuilder state, Long id, Long version) {
+        state.append('a').append(id).append(':').append(version).append(';');
+    }
+
+    private static String weak(StringBuilder state, Object... meta) {
+        state.append('|').append(Arrays.toString(meta));
+        return "W/\"" + DigestUtils.md5DigestAsHex(
+            state.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -0,0 +1,15 @@
+package com.boldyrev.library.util.http;
+
+/**
+ * Типы содержимого, для которых нет констант в {@link org.springframework.http.MediaType}
+ */
+public final class MediaTypes {
+
+    /**
+     * JSON Merge Patch (RFC 7386)
+     */
+    public static final String APPLICATION_MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
+    private MediaTypes() {
+    }
+}
@@ -0,0 +1,16 @@
+package com.boldyrev.library.util.isbn;
+
+/**
+ * Приведение ISBN к виду, в котором он хранится в t_books: только цифры и контрольный символ X
+ */
+public final class ISBNs {
+
+    private static final String NON_DIGITS_PATTERN = "[^\\dX]";
+
+    private ISBNs() {
+    }
+
+    public static String enrich(String ISBN) {
+        return ISBN.replaceAll(NON_DIGITS_PATTERN, "");
+    }
+}
@@ -0,0 +1,39 @@
+package com.boldyrev.library.util.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import java.io.IOException;
+
+/**
+ * Заранее сериализованное JSON-значение. При записи ответа байты UTF-8 вставляются в него как
+ * есть, без повторной сериализации
+ */
+public final class JsonFragment implements JsonSerializable {
+
+    private final SerializedString json;
+
+    public JsonFragment(String json) {
+        this.json = new SerializedString(json);
+        this.json.asUnquotedUTF8();
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider serializers)
+        throws IOException {
+        generator.writeRawValue(json);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider serializers,
+        TypeSerializer typeSerializer) throws IOException {
+        serialize(generator, serializers);
+    }
+
+    @Override
+    public String toString() {
+        return json.getValue();
+    }
+}
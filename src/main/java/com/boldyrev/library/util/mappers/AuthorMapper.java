@@ -3,12 +3,15 @@ package com.boldyrev.library.util.mappers;
 import com.boldyrev.library.dto.AuthorDTO;
 import com.boldyrev.library.models.Author;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(componentModel = "spring")
 public abstract class AuthorMapper {
 
     public abstract AuthorDTO authorToAuthorDTO(Author author);
 
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "books", ignore = true)
     public abstract Author authorDTOToAuthor(AuthorDTO author);
 
 }
@@ -16,6 +16,7 @@ public abstract class BookMapper {
     @Mapping(target = "authors", expression = "java(book.getAuthors().stream().map(a -> authorMapper.authorToAuthorDTO(a)).collect(Collectors.toSet()))")
     public abstract BookDTO bookToBookDTO(Book book);
 
-    @Mapping(target = "authors", expression = "java(book.getAuthors().stream().map(a -> authorMapper.authorDTOToAuthor(a)).collect(Collectors.toSet()))")
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "authors", expression = "java(book.getAuthors() == null ? null : book.getAuthors().stream().map(a -> authorMapper.authorDTOToAuthor(a)).collect(Collectors.toSet()))")
     public abstract Book bookDTOToBook(BookDTO book);
 }
@@ -0,0 +1,24 @@
+package com.boldyrev.library.util.pagination;
+
+/**
+ * Способ подсчета общего количества записей для постраничных ответов
+ */
+public enum CountMode {
+
+    /**
+     * Точный COUNT, ответ содержит totalElements и totalPages
+     */
+    EXACT,
+
+    /**
+     * Без подсчета: запрашивается size + 1 запись, ответ содержит только признак наличия следующей
+     * страницы
+     */
+    NONE,
+
+    /**
+     * Оценка количества по статистике PostgreSQL, если она превышает порог точного подсчета.
+     * Признак totalExact в ответе показывает, является ли totalElements точным значением
+     */
+    ESTIMATED
+}
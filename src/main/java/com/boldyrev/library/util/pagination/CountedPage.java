@@ -0,0 +1,53 @@
+package com.boldyrev.library.util.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Страница, общее количество записей которой может быть оценкой планировщика. Признак totalExact
+ * показывает, был ли выполнен точный подсчет
+ */
+public class CountedPage<T> extends PageImpl<T> {
+
+    private final boolean totalExact;
+
+    public CountedPage(List<T> content, Pageable pageable, long total, boolean totalExact) {
+        super(content, pageable, total);
+        this.totalExact = totalExact;
+    }
+
+    public static <T> CountedPage<T> exact(Page<T> page) {
+        return new CountedPage<>(page.getContent(), page.getPageable(), page.getTotalElements(),
+            true);
+    }
+
+    /**
+     * Строит страницу по срезу и оценке количества записей. Если следующей страницы нет, общее
+     * количество известно точно
+     */
+    public static <T> CountedPage<T> estimated(Slice<T> slice, long estimate) {
+        long offset = slice.getPageable().getOffset();
+        long known = offset + slice.getNumberOfElements();
+
+        if (!slice.hasNext()) {
+            return new CountedPage<>(slice.getContent(), slice.getPageable(), known, true);
+        }
+
+        return new CountedPage<>(slice.getContent(), slice.getPageable(),
+            Math.max(estimate, known + 1), false);
+    }
+
+    public boolean isTotalExact() {
+        return totalExact;
+    }
+
+    @Override
+    public <U> CountedPage<U> map(Function<? super T, ? extends U> converter) {
+        return new CountedPage<>(getConvertedContent(converter), getPageable(), getTotalElements(),
+            totalExact);
+    }
+}
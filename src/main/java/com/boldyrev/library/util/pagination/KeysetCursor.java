@@ -0,0 +1,41 @@
+package com.boldyrev.library.util.pagination;
+
+import com.boldyrev.library.exceptions.ValidationException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Позиция последней записи страницы: значение ключа сортировки и ID. Клиенту передается в виде
+ * непрозрачной строки
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetCursor {
+
+    private static final char SEPARATOR = ':';
+
+    private final String key;
+
+    private final Long id;
+
+    public static String encode(String key, Long id) {
+        String cursor = id.toString() + SEPARATOR + key;
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor),
+                StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+
+            return new KeysetCursor(decoded.substring(separator + 1),
+                Long.valueOf(decoded.substring(0, separator)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new ValidationException(String.format("Cursor %s is invalid", cursor));
+        }
+    }
+}
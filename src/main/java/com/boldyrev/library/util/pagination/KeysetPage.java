@@ -0,0 +1,28 @@
+package com.boldyrev.library.util.pagination;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import java.util.List;
+import java.util.function.Function;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Страница keyset-пагинации. Поле next содержит курсор следующей страницы и отсутствует на
+ * последней странице
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(Include.NON_NULL)
+public class KeysetPage<T> {
+
+    private final List<T> content;
+
+    private final int size;
+
+    private final String next;
+
+    public <U> KeysetPage<U> map(Function<? super T, ? extends U> converter) {
+        return new KeysetPage<>(content.stream().<U>map(converter).toList(), size, next);
+    }
+}
@@ -0,0 +1,54 @@
+package com.boldyrev.library.util.validators;
+
+import com.boldyrev.library.util.validators.entity_validators.CustomValidator;
+import jakarta.validation.Validator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+/**
+ * Валидация элементов пакетного запроса по отдельности: ошибка одного элемента не отклоняет
+ * весь запрос
+ */
+@Component
+public class BatchValidator {
+
+    private final SpringValidatorAdapter validator;
+
+    @Autowired
+    public BatchValidator(Validator validator) {
+        this.validator = new SpringValidatorAdapter(validator);
+    }
+
+    /**
+     * @param items элементы запроса
+     * @param validator валидатор сущности, формирующий сообщение об ошибке
+     * @param groups группы валидации
+     * @return сообщения об ошибках по позициям элементов
+     */
+    public Map<Integer, String> validate(List<?> items, CustomValidator validator,
+        Class<?>... groups) {
+        Map<Integer, String> errors = new HashMap<>();
+
+        for (int index = 0; index < items.size(); index++) {
+            Object item = items.get(index);
+            if (item == null) {
+                errors.put(index, "Item is empty");
+                continue;
+            }
+
+            Errors itemErrors = new BeanPropertyBindingResult(item, "item");
+            this.validator.validate(item, itemErrors, (Object[]) groups);
+            if (itemErrors.hasErrors()) {
+                errors.put(index, validator.getErrors(itemErrors));
+            }
+        }
+
+        return errors;
+    }
+}
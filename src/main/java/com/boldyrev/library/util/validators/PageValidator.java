@@ -1,14 +1,19 @@
 package com.boldyrev.library.util.validators;
 
 import com.boldyrev.library.exceptions.DataNotFoundException;
-import org.springframework.data.domain.Page;
+import java.util.List;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Component;
 
 @Component
 public class PageValidator {
 
-    public void validate(Page<?> page, String[] requestParameters) {
-        if (page.isEmpty()) {
+    public void validate(Slice<?> page, String[] requestParameters) {
+        validate(page.getContent(), requestParameters);
+    }
+
+    public void validate(List<?> content, String[] requestParameters) {
+        if (content.isEmpty()) {
             StringBuilder message = new StringBuilder("Data");
 
             if (requestParameters != null) {
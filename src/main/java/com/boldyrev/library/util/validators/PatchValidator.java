@@ -0,0 +1,86 @@
+package com.boldyrev.library.util.validators;
+
+import com.boldyrev.library.exceptions.ValidationException;
+import com.boldyrev.library.util.validators.entity_validators.CustomValidator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import jakarta.validation.Validator;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+/**
+ * Валидация тела JSON Merge Patch (RFC 7386): проверяются только переданные поля. Значение null
+ * по стандарту удаляет поле, поэтому для обязательных полей оно отклоняется их же ограничениями
+ */
+@Component
+public class PatchValidator {
+
+    private final SpringValidatorAdapter validator;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public PatchValidator(Validator validator, ObjectMapper objectMapper) {
+        this.validator = new SpringValidatorAdapter(validator);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param patch тело запроса
+     * @param type класс DTO
+     * @param validator валидатор сущности, формирующий сообщение об ошибке
+     * @param groups группы валидации
+     * @return DTO, в котором заполнены только переданные поля
+     */
+    public <T> T validate(JsonNode patch, Class<T> type, CustomValidator validator,
+        Class<?>... groups) {
+        if (!patch.isObject()) {
+            throw new ValidationException("Merge patch must be a JSON object");
+        }
+
+        T item;
+        try {
+            item = objectMapper.treeToValue(patch, type);
+        } catch (JsonProcessingException e) {
+            throw new ValidationException(String.format("Merge patch is incorrect: %s",
+                e.getOriginalMessage()));
+        }
+
+        Set<String> fields = fields(patch, type);
+        Errors itemErrors = new BeanPropertyBindingResult(item, "item");
+        this.validator.validate(item, itemErrors, (Object[]) groups);
+
+        BeanPropertyBindingResult patchErrors = new BeanPropertyBindingResult(item, "item");
+        itemErrors.getFieldErrors().stream()
+            .filter(error -> fields.contains(rootField(error)))
+            .forEach(patchErrors::addError);
+        if (patchErrors.hasErrors()) {
+            throw new ValidationException(validator.getErrors(patchErrors));
+        }
+
+        return item;
+    }
+
+    /**
+     * Имена полей DTO, переданных в запросе под их JSON-именами
+     */
+    private Set<String> fields(JsonNode patch, Class<?> type) {
+        return objectMapper.getDeserializationConfig()
+            .introspect(objectMapper.constructType(type))
+            .findProperties().stream()
+            .filter(property -> patch.has(property.getName()))
+            .map(BeanPropertyDefinition::getInternalName)
+            .collect(Collectors.toSet());
+    }
+
+    private static String rootField(FieldError error) {
+        return error.getField().split("[.\\[]", 2)[0];
+    }
+}
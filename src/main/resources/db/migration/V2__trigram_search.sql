@@ -0,0 +1,26 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Case folding used by the book search: upper case with Cyrillic YO (U+0401) folded to IE (U+0415).
+-- Letters are built with chr() so the function does not depend on the script encoding.
+CREATE OR REPLACE FUNCTION library_fold(value text) RETURNS text
+    LANGUAGE sql
+    IMMUTABLE
+    PARALLEL SAFE
+AS
+$$
+SELECT translate(upper(value), chr(1025), chr(1045))
+$$;
+
+-- fastupdate is disabled so searches never have to scan the GIN pending list: the catalog is
+-- read far more often than written and the pending list makes search latency unpredictable.
+CREATE INDEX IF NOT EXISTS t_books_title_trgm_idx
+    ON t_books USING gin (library_fold(title) gin_trgm_ops)
+    WITH (fastupdate = off);
+
+CREATE INDEX IF NOT EXISTS t_books_isbn_trgm_idx
+    ON t_books USING gin (isbn gin_trgm_ops)
+    WITH (fastupdate = off);
+
+CREATE INDEX IF NOT EXISTS t_authors_name_trgm_idx
+    ON t_authors USING gin (library_fold(name) gin_trgm_ops)
+    WITH (fastupdate = off);
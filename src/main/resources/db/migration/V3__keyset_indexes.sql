@@ -0,0 +1,4 @@
+-- Composite indexes matching the keyset pagination order: WHERE (title, id) > (?, ?) ORDER BY title, id
+CREATE INDEX IF NOT EXISTS t_books_title_id_idx ON t_books (title, book_id);
+
+CREATE INDEX IF NOT EXISTS t_authors_name_id_idx ON t_authors (name, author_id);
@@ -0,0 +1,6 @@
+-- Optimistic locking versions, also used to build HTTP ETags.
+ALTER TABLE t_authors
+    ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+
+ALTER TABLE t_books
+    ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
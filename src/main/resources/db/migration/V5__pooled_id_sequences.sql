@@ -0,0 +1,9 @@
+-- Hibernate allocates ids with the pooled-lo optimizer: one nextval reserves the block
+-- [value, value + increment), so the sequence increment is the allocation size. The mapping adopts
+-- the increment at startup (increment_size_mismatch_strategy=fix): to change the allocation size,
+-- alter the increment here.
+ALTER TABLE t_books
+    ALTER COLUMN book_id SET INCREMENT BY 50;
+
+ALTER TABLE t_authors
+    ALTER COLUMN author_id SET INCREMENT BY 50;
@@ -0,0 +1,200 @@
+package com.boldyrev.library.reactive;
+
+import com.boldyrev.library.dto.AuthorView;
+import com.boldyrev.library.dto.BookView;
+import com.boldyrev.library.repositories.BooksRepository;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Readable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Чтение книг и авторов через R2DBC для реактивного сервера чтения. Фильтр поиска, порядок и
+ * запрос книг с авторами берутся из {@link BooksRepository}, как и на JPA-пути, книги
+ * собираются в {@link BookView} из подряд идущих строк одной книги.
+ *
+ * <p>Пул соединений R2DBC создается здесь и не регистрируется бином: бин ConnectionFactory
+ * отключил бы автоконфигурацию DataSource, на которой работают JPA и запись
+ */
+@Component
+@ConditionalOnProperty(name = "library.reactive.enabled", havingValue = "true")
+public class ReactiveCatalogReader implements DisposableBean {
+
+    private static final String SEARCH_IDS_SQL = BooksRepository.SEARCH_IDS_SQL
+        + BooksRepository.SEARCH_ORDER + " LIMIT :limit OFFSET :offset";
+
+    private static final String STREAM_SQL = BooksRepository.VIEWS_SELECT_SQL + "WHERE "
+        + BooksRepository.SEARCH_FILTER + " ORDER BY b.title, b.book_id, a.author_id";
+
+    private static final String AUTHORS_SQL = """
+        SELECT author_id, name, birth_date, country, version
+        FROM t_authors
+        ORDER BY name, author_id
+        LIMIT :limit OFFSET :offset
+        """;
+
+    private final ConnectionPool pool;
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveCatalogReader(
+        @Value("${library.reactive.r2dbc.url:}") String url,
+        @Value("${spring.datasource.url}") String jdbcUrl,
+        @Value("${spring.datasource.username:}") String username,
+        @Value("${spring.datasource.password:}") String password,
+        @Value("${library.reactive.r2dbc.pool-size:10}") int poolSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(
+                url.isBlank() ? jdbcUrl.replaceFirst("^jdbc:", "r2dbc:") : url)
+            .mutate()
+            .option(ConnectionFactoryOptions.USER, username)
+            .option(ConnectionFactoryOptions.PASSWORD, password)
+            .build();
+
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration
+            .builder(ConnectionFactories.get(options))
+            .initialSize(Math.min(poolSize, 2))
+            .maxSize(poolSize)
+            .build());
+        this.databaseClient = DatabaseClient.create(pool);
+    }
+
+    /**
+     * Страница книг, найденных как в {@link BooksRepository#findIdsByParameters}, с сортировкой
+     * по названию и ID
+     */
+    public Mono<Page<BookView>> search(String title, String ISBN, String authorName, int page,
+        int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("title", "id"));
+
+        Mono<List<Long>> ids = filter(databaseClient.sql(SEARCH_IDS_SQL), title, ISBN, authorName)
+            .bind("limit", size)
+            .bind("offset", pageable.getOffset())
+            .map(row -> row.get("book_id", Long.class))
+            .all()
+            .collectList();
+        Mono<Long> total = filter(databaseClient.sql(BooksRepository.SEARCH_COUNT_SQL), title,
+            ISBN, authorName)
+            .map(row -> row.get(0, Long.class))
+            .one();
+
+        return Mono.zip(ids, total).flatMap(found -> findViews(found.getT1())
+            .map(books -> new PageImpl<>(books, pageable, found.getT2())));
+    }
+
+    /**
+     * Все найденные книги по названию и ID. Строки читаются порциями по
+     * {@link BooksRepository#STREAM_FETCH_SIZE} по мере запроса элементов подписчиком
+     */
+    public Flux<BookView> streamSearch(String title, String ISBN, String authorName) {
+        return groupByBook(filter(databaseClient.sql(STREAM_SQL), title, ISBN, authorName)
+            .filter(statement -> statement.fetchSize(BooksRepository.STREAM_FETCH_SIZE))
+            .map(BookRow::of)
+            .all());
+    }
+
+    /**
+     * Страница авторов с сортировкой по имени
+     */
+    public Mono<Page<AuthorView>> findAuthors(int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("name"));
+
+        Mono<List<AuthorView>> authors = databaseClient.sql(AUTHORS_SQL)
+            .bind("limit", size)
+            .bind("offset", pageable.getOffset())
+            .map(row -> authorView(row, "version"))
+            .all()
+            .collectList();
+        Mono<Long> total = databaseClient.sql("SELECT count(*) FROM t_authors")
+            .map(row -> row.get(0, Long.class))
+            .one();
+
+        return Mono.zip(authors, total)
+            .map(found -> new PageImpl<>(found.getT1(), pageable, found.getT2()));
+    }
+
+    @Override
+    public void destroy() {
+        pool.dispose();
+    }
+
+    /**
+     * Книги с авторами в порядке переданных ID
+     */
+    private Mono<List<BookView>> findViews(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        return groupByBook(databaseClient.sql(BooksRepository.VIEWS_SQL)
+            .bind("ids", ids.toArray(Long[]::new))
+            .map(BookRow::of)
+            .all())
+            .collectMap(BookView::id, Function.identity())
+            .map(books -> ids.stream().map(books::get).filter(Objects::nonNull).toList());
+    }
+
+    private static Flux<BookView> groupByBook(Flux<BookRow> rows) {
+        return rows
+            .bufferUntilChanged(BookRow::bookId)
+            .map(bookRows -> {
+                BookRow first = bookRows.get(0);
+                List<AuthorView> authors = new ArrayList<>(bookRows.size());
+                bookRows.stream()
+                    .map(BookRow::author)
+                    .filter(Objects::nonNull)
+                    .forEach(authors::add);
+                return new BookView(first.bookId(), first.title(), first.ISBN(),
+                    first.numPages(), first.publicationDate(),
+                    Collections.unmodifiableList(authors), first.version());
+            });
+    }
+
+    private static DatabaseClient.GenericExecuteSpec filter(DatabaseClient.GenericExecuteSpec spec,
+        String title, String ISBN, String authorName) {
+        return spec
+            .bind("title", title)
+            .bind("isbn", ISBN)
+            .bind("author", authorName);
+    }
+
+    private static AuthorView authorView(Readable row, String versionColumn) {
+        return new AuthorView(row.get("author_id", Long.class), row.get("name", String.class),
+            row.get("birth_date", LocalDate.class), row.get("country", String.class),
+            row.get(versionColumn, Long.class));
+    }
+
+    /**
+     * Строка книги с одним автором (или без авторов)
+     */
+    private record BookRow(Long bookId, String title, String ISBN, Integer numPages,
+                           LocalDate publicationDate, Long version, AuthorView author) {
+
+        static BookRow of(Readable row) {
+            return new BookRow(row.get("book_id", Long.class), row.get("title", String.class),
+                row.get("isbn", String.class), row.get("num_pages", Integer.class),
+                row.get("publication_date", LocalDate.class), row.get("version", Long.class),
+                row.get("author_id", Long.class) == null
+                    ? null : authorView(row, "author_version"));
+        }
+    }
+}
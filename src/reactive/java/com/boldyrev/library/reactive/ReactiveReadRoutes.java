@@ -0,0 +1,110 @@
+package com.boldyrev.library.reactive;
+
+import com.boldyrev.library.dto.BookView;
+import com.boldyrev.library.exception_handling.ErrorResponse;
+import com.boldyrev.library.exceptions.DataNotFoundException;
+import com.boldyrev.library.exceptions.ValidationException;
+import com.boldyrev.library.util.isbn.ISBNs;
+import com.boldyrev.library.util.validators.PageValidator;
+import java.time.LocalDateTime;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * Реактивные endpoint'ы чтения с тем же JSON, что у BooksController и AuthorsController.
+ * Поиск с заголовком Accept: application/x-ndjson возвращает все найденные книги потоком: строки
+ * читаются из базы по мере отправки ответа клиенту
+ */
+@Component
+@ConditionalOnProperty(name = "library.reactive.enabled", havingValue = "true")
+@Slf4j
+public class ReactiveReadRoutes {
+
+    private final ReactiveCatalogReader catalogReader;
+    private final PageValidator pageValidator;
+
+    @Autowired
+    public ReactiveReadRoutes(ReactiveCatalogReader catalogReader, PageValidator pageValidator) {
+        this.catalogReader = catalogReader;
+        this.pageValidator = pageValidator;
+    }
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+            .GET("/api/v1/books/search", this::searchBooks)
+            .GET("/api/v1/authors", this::getAuthors)
+            .onError(DataNotFoundException.class,
+                (e, request) -> error(HttpStatus.NOT_FOUND, e))
+            .onError(ValidationException.class,
+                (e, request) -> error(HttpStatus.BAD_REQUEST, e))
+            .build();
+    }
+
+    private Mono<ServerResponse> searchBooks(ServerRequest request) {
+        String title = request.queryParam("title").orElse("");
+        String ISBN = request.queryParam("isbn").orElse("");
+        String authorName = request.queryParam("author").orElse("");
+        String enrichedISBN = ISBNs.enrich(ISBN);
+
+        if (request.headers().accept().contains(MediaType.APPLICATION_NDJSON)) {
+            return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(catalogReader.streamSearch(title, enrichedISBN, authorName),
+                    BookView.class);
+        }
+
+        return Mono.defer(() -> catalogReader.search(title, enrichedISBN, authorName,
+                intParam(request, "page", 0, 0), intParam(request, "size", 10, 1)))
+            .doOnNext(books -> pageValidator.validate(books,
+                new String[]{title, ISBN, authorName}))
+            .flatMap(this::page);
+    }
+
+    private Mono<ServerResponse> getAuthors(ServerRequest request) {
+        return Mono.defer(() -> catalogReader.findAuthors(intParam(request, "page", 0, 0),
+                intParam(request, "size", 10, 1)))
+            .doOnNext(authors -> pageValidator.validate(authors, null))
+            .flatMap(this::page);
+    }
+
+    private Mono<ServerResponse> page(Page<?> page) {
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(page);
+    }
+
+    /**
+     * Проверки совпадают с @PositiveOrZero и @Positive параметров контроллеров
+     */
+    private static int intParam(ServerRequest request, String name, int defaultValue, int min) {
+        String value = request.queryParam(name).orElse(null);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= min) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new ValidationException(String.format("Parameter %s must be an integer >= %d",
+            name, min));
+    }
+
+    private static Mono<ServerResponse> error(HttpStatus status, Throwable e) {
+        log.debug("Can't handle reactive read request. Message: {}", e.getMessage());
+        return ServerResponse.status(status)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new ErrorResponse(e.getMessage(), LocalDateTime.now()));
+    }
+}
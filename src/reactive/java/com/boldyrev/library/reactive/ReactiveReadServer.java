@@ -0,0 +1,75 @@
+package com.boldyrev.library.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Сервер Reactor Netty для {@link ReactiveReadRoutes} на порту library.reactive.port. Работает
+ * рядом с Tomcat: сервлетное приложение продолжает обслуживать все endpoint'ы, включая запись
+ * через JPA
+ */
+@Component
+@ConditionalOnProperty(name = "library.reactive.enabled", havingValue = "true")
+@Slf4j
+public class ReactiveReadServer implements SmartLifecycle {
+
+    private final HttpHandler httpHandler;
+    private final int port;
+
+    private volatile DisposableServer server;
+
+    @Autowired
+    public ReactiveReadServer(ReactiveReadRoutes routes, ObjectMapper objectMapper,
+        @Value("${library.reactive.port:8081}") int port) {
+        this.port = port;
+        this.httpHandler = RouterFunctions.toHttpHandler(routes.routes(), HandlerStrategies
+            .builder()
+            .codecs(codecs -> {
+                codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+            })
+            .build());
+    }
+
+    /**
+     * Фактический порт сервера (при library.reactive.port=0 выбирается свободный)
+     */
+    public int getPort() {
+        return server.port();
+    }
+
+    @Override
+    public void start() {
+        server = HttpServer.create()
+            .port(port)
+            .handle(new ReactorHttpHandlerAdapter(httpHandler))
+            .bindNow();
+        log.info("Reactive read server started on port {}", server.port());
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+            server = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+}
@@ -0,0 +1,126 @@
+package com.boldyrev.library.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(properties = {"library.reactive.enabled=true", "library.reactive.port=0"})
+@AutoConfigureMockMvc
+@Sql({"/db/migration/V1__data.sql", "/db/migration/V4__entity_versions.sql",
+    "/db/migration/V5__pooled_id_sequences.sql"})
+@TestPropertySource("classpath:application-test.properties")
+public class ReactiveReadServerTest {
+
+    private final ReactiveReadServer server;
+
+    private final MockMvc mockMvc;
+
+    private final ObjectMapper objectMapper;
+
+    private WebTestClient client;
+
+    @Autowired
+    public ReactiveReadServerTest(ReactiveReadServer server, MockMvc mockMvc,
+        ObjectMapper objectMapper) {
+        this.server = server;
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+    }
+
+    @BeforeEach
+    void createClient() {
+        client = WebTestClient.bindToServer()
+            .baseUrl("http://localhost:" + server.getPort())
+            .build();
+    }
+
+    @Test
+    void searchBooks_SameParameters_SameJsonAsServletEndpoint() throws Exception {
+        String servlet = mockMvc.perform(get("/api/v1/books/search")
+                .param("author", "толкин")
+                .param("size", "2")
+                .param("page", "1"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String reactive = reactiveGet("/api/v1/books/search?author={author}&size=2&page=1",
+            "толкин");
+
+        assertThat(objectMapper.readTree(reactive)).isEqualTo(objectMapper.readTree(servlet));
+        assertThat(objectMapper.readTree(reactive).get("totalElements").asInt()).isEqualTo(3);
+    }
+
+    @Test
+    void getAuthors_SamePage_SameJsonAsServletEndpoint() throws Exception {
+        String servlet = mockMvc.perform(get("/api/v1/authors").param("size", "3"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String reactive = reactiveGet("/api/v1/authors?size=3");
+
+        assertThat(objectMapper.readTree(reactive)).isEqualTo(objectMapper.readTree(servlet));
+    }
+
+    @Test
+    void searchBooks_AcceptNdjson_StreamsAllFoundBooks() throws Exception {
+        String body = client.get()
+            .uri("/api/v1/books/search?title={title}", "колесо")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .expectBody(String.class)
+            .returnResult().getResponseBody();
+
+        List<JsonNode> books = body.lines().map(this::readTree).toList();
+        assertThat(books).extracting(book -> book.get("id").asLong()).containsExactly(7L, 8L);
+        assertThat(books.get(0).get("authors").get(0).get("id").asLong()).isEqualTo(4L);
+    }
+
+    @Test
+    void searchBooks_NothingFoundOrInvalidSize_ReturnsErrorResponse() {
+        client.get()
+            .uri("/api/v1/books/search?title=nothing")
+            .exchange()
+            .expectStatus().isNotFound()
+            .expectBody().jsonPath("$.message").isEqualTo("Data by parameters [nothing;] not found");
+
+        client.get()
+            .uri("/api/v1/authors?size=0")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody().jsonPath("$.message").isNotEmpty();
+    }
+
+    private String reactiveGet(String uri, Object... variables) {
+        return client.get()
+            .uri(uri, variables)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(String.class)
+            .returnResult().getResponseBody();
+    }
+
+    private JsonNode readTree(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.boldyrev.library.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+/**
+ * Нагрузочное сравнение поиска книг на Tomcat + JDBC и на реактивном сервере чтения. Клиенты
+ * держат заданное число одновременных запросов к случайным страницам поиска, для каждого
+ * сервера выводится пропускная способность и количество ошибок. Память фиксируется размером
+ * кучи JVM тестов. Запускается явно:
+ * mvn -Preactive test -Dtest=SearchLoadBenchmarkTest -Dbenchmark=true -DargLine=-Xmx256m
+ * [-Dbenchmark.concurrency=512] [-Dbenchmark.seconds=20]
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+    "library.reactive.enabled=true", "library.reactive.port=0",
+    "spring.jpa.properties.hibernate.show_sql=false", "logging.level.com.boldyrev=info"})
+@Sql({"/db/migration/V1__data.sql", "/db/migration/V2__trigram_search.sql",
+    "/db/migration/V4__entity_versions.sql", "/db/migration/V5__pooled_id_sequences.sql"})
+@TestPropertySource("classpath:application-test.properties")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Slf4j
+public class SearchLoadBenchmarkTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 512);
+
+    private static final int SECONDS = Integer.getInteger("benchmark.seconds", 20);
+
+    private static final int BOOKS = 5000;
+
+    private static final int PAGE_SIZE = 20;
+
+    private final ReactiveReadServer reactiveServer;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+
+    @LocalServerPort
+    private int servletPort;
+
+    @Autowired
+    public SearchLoadBenchmarkTest(ReactiveReadServer reactiveServer,
+        JdbcTemplate jdbcTemplate) {
+        this.reactiveServer = reactiveServer;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @BeforeEach
+    void fillCatalog() {
+        jdbcTemplate.update("""
+            INSERT INTO t_books (title, isbn, num_pages, publication_date)
+            SELECT 'Generated book ' || md5(i::text), lpad(i::text, 13, '0'), 100, '2000-01-01'
+            FROM generate_series(1, ?) i
+            """, BOOKS);
+        jdbcTemplate.update("""
+            INSERT INTO t_authors_books (author_id, book_id)
+            SELECT 1 + book_id % 8, book_id
+            FROM t_books
+            WHERE title LIKE 'Generated%'
+            """);
+    }
+
+    @Test
+    void search_ServletVersusReactive() throws Exception {
+        load(servletPort, SECONDS / 4);
+        load(reactiveServer.getPort(), SECONDS / 4);
+
+        Result servlet = load(servletPort, SECONDS);
+        Result reactive = load(reactiveServer.getPort(), SECONDS);
+
+        log.info("Max heap {} MB, {} concurrent clients, {} s per run",
+            Runtime.getRuntime().maxMemory() / 1024 / 1024, CONCURRENCY, SECONDS);
+        log.info("Tomcat + JDBC: {} requests/s, {} errors", servlet.throughput(),
+            servlet.errors());
+        log.info("WebFlux + R2DBC: {} requests/s, {} errors", reactive.throughput(),
+            reactive.errors());
+
+        assertThat(servlet.completed() + reactive.completed()).isPositive();
+    }
+
+    private Result load(int port, int seconds) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long request = 0;
+
+        while (System.nanoTime() < deadline) {
+            inFlight.acquire();
+            long page = request++ % (BOOKS / PAGE_SIZE);
+            httpClient.sendAsync(HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                        + "/api/v1/books/search?title=generated&size=" + PAGE_SIZE + "&page="
+                        + page))
+                    .timeout(Duration.ofSeconds(30))
+                    .build(), BodyHandlers.discarding())
+                .whenComplete((response, e) -> {
+                    if (e == null && response.statusCode() == 200) {
+                        completed.incrementAndGet();
+                    } else {
+                        errors.incrementAndGet();
+                    }
+                    inFlight.release();
+                });
+        }
+        inFlight.acquire(CONCURRENCY);
+
+        return new Result(completed.get() / seconds, completed.get(), errors.get());
+    }
+
+    private record Result(long throughput, long completed, long errors) {
+
+    }
+}
@@ -0,0 +1,136 @@
+package com.boldyrev.library.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.boldyrev.library.models.Book;
+import com.boldyrev.library.repositories.BooksRepository;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Сравнение скорости добавления книг через Hibernate по одному INSERT на сущность (как было при
+ * IDENTITY) и пакетными INSERT с ID из последовательности (pooled-lo), а также пакетами JDBC в
+ * обход Hibernate. Книги добавляются транзакциями по 500, перед замером каждый способ прогревается.
+ * Запускается явно:
+ * mvn test -Dtest=InsertThroughputBenchmarkTest -Dbenchmark=true [-Dbenchmark.rows=20000]
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.show_sql=false")
+@Sql({"/db/migration/V1__data.sql", "/db/migration/V4__entity_versions.sql",
+    "/db/migration/V5__pooled_id_sequences.sql"})
+@TestPropertySource("classpath:application-test.properties")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Slf4j
+public class InsertThroughputBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 10000);
+
+    private static final int ROWS_PER_TRANSACTION = 500;
+
+    private final BooksRepository booksRepository;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public InsertThroughputBenchmarkTest(BooksRepository booksRepository,
+        EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.booksRepository = booksRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void insert_RowByRowVersusPooledBatches() {
+        insertRowByRow(books(-ROWS_PER_TRANSACTION, ROWS_PER_TRANSACTION));
+        insertWithHibernate(books(-2 * ROWS_PER_TRANSACTION, ROWS_PER_TRANSACTION));
+        insertWithJdbcBatches(books(-3 * ROWS_PER_TRANSACTION, ROWS_PER_TRANSACTION));
+
+        long rowByRow = measure(() -> insertRowByRow(books(0, ROWS)));
+        long hibernate = measure(() -> insertWithHibernate(books(ROWS, ROWS)));
+        long jdbcBatches = measure(() -> insertWithJdbcBatches(books(2 * ROWS, ROWS)));
+
+        log.info("Hibernate, insert per entity (as with IDENTITY): {} books/s",
+            throughput(rowByRow));
+        log.info("Hibernate, pooled-lo sequence, batched inserts: {} books/s",
+            throughput(hibernate));
+        log.info("JDBC batches with preallocated ids (BooksRepository.insertAll): {} books/s",
+            throughput(jdbcBatches));
+
+        assertThat(booksRepository.count()).isGreaterThanOrEqualTo(3L * ROWS);
+    }
+
+    /**
+     * Как с IDENTITY: каждая сущность добавляется отдельным INSERT сразу при сохранении, без
+     * пакетов
+     */
+    private void insertRowByRow(List<Book> books) {
+        inTransactions(books, chunk -> {
+            Session session = entityManager.unwrap(Session.class);
+            session.setJdbcBatchSize(1);
+            chunk.forEach(book -> {
+                session.persist(book);
+                session.flush();
+            });
+        });
+    }
+
+    private void insertWithHibernate(List<Book> books) {
+        inTransactions(books, booksRepository::saveAllAndFlush);
+    }
+
+    private void insertWithJdbcBatches(List<Book> books) {
+        inTransactions(books, booksRepository::insertAll);
+    }
+
+    private void inTransactions(List<Book> books, Consumer<List<Book>> insert) {
+        for (int from = 0; from < books.size(); from += ROWS_PER_TRANSACTION) {
+            List<Book> chunk = books.subList(from,
+                Math.min(from + ROWS_PER_TRANSACTION, books.size()));
+            transactionTemplate.executeWithoutResult(status -> insert.accept(chunk));
+        }
+    }
+
+    private static List<Book> books(int offset, int count) {
+        return IntStream.range(offset, offset + count)
+            .mapToObj(i -> new Book(null, "Benchmark book " + i, isbn(i), 100,
+                LocalDate.of(2000, 1, 1), new HashSet<>(), null))
+            .toList();
+    }
+
+    /**
+     * Корректный ISBN-13 с префиксом 979 и номером книги
+     */
+    private static String isbn(int number) {
+        String digits = String.format("979%09d", number + 100_000_000);
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+
+    private static long measure(Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        return System.nanoTime() - start;
+    }
+
+    private static long throughput(long nanos) {
+        return ROWS * 1_000_000_000L / nanos;
+    }
+}
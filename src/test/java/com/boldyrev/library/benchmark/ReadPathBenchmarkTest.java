@@ -0,0 +1,149 @@
+package com.boldyrev.library.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.boldyrev.library.repositories.BooksRepository;
+import com.boldyrev.library.util.mappers.BookMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Сравнение чтения страницы книг с авторами и сериализации в JSON через сущности и MapStruct
+ * (как до проекций) и через запрос-проекцию в BookView. Для каждого способа выводится время и
+ * объем памяти, выделенной потоком, в среднем на страницу. Перед замером каждый способ
+ * прогревается. Запускается явно:
+ * mvn test -Dtest=ReadPathBenchmarkTest -Dbenchmark=true [-Dbenchmark.pages=2000]
+ * [-Dbenchmark.page-size=50]
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.show_sql=false")
+@Sql({"/db/migration/V1__data.sql", "/db/migration/V4__entity_versions.sql",
+    "/db/migration/V5__pooled_id_sequences.sql"})
+@TestPropertySource("classpath:application-test.properties")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Slf4j
+public class ReadPathBenchmarkTest {
+
+    private static final int PAGES = Integer.getInteger("benchmark.pages", 2000);
+
+    private static final int PAGE_SIZE = Integer.getInteger("benchmark.page-size", 50);
+
+    private static final int BOOKS = 10000;
+
+    private static final long FIRST_ID = 1_000_000;
+
+    private final BooksRepository booksRepository;
+
+    private final BookMapper bookMapper;
+
+    private final ObjectMapper objectMapper;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Autowired
+    public ReadPathBenchmarkTest(BooksRepository booksRepository, BookMapper bookMapper,
+        ObjectMapper objectMapper, JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager) {
+        this.booksRepository = booksRepository;
+        this.bookMapper = bookMapper;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Книги с двумя авторами каждая, как у соавторских книг каталога
+     */
+    @BeforeEach
+    void fillCatalog() {
+        jdbcTemplate.update("""
+            INSERT INTO t_books (book_id, title, isbn, num_pages, publication_date)
+            SELECT ? + i, 'Benchmark book ' || i, 'BENCH' || i, 100, '2000-01-01'
+            FROM generate_series(0, ? - 1) i
+            """, FIRST_ID, BOOKS);
+        jdbcTemplate.update("""
+            INSERT INTO t_authors (author_id, name, birth_date, country)
+            SELECT ? + i, 'Benchmark author ' || i, '1950-01-01', 'Country'
+            FROM generate_series(0, ? - 1) i
+            """, FIRST_ID, BOOKS);
+        jdbcTemplate.update("""
+            INSERT INTO t_authors_books (author_id, book_id)
+            SELECT ? + (i + j) % ?, ? + i
+            FROM generate_series(0, ? - 1) i, generate_series(0, 1) j
+            """, FIRST_ID, BOOKS, FIRST_ID, BOOKS);
+    }
+
+    @Test
+    void readPage_EntitiesVersusProjection() {
+        Function<List<Long>, String> entities = ids -> json(
+            booksRepository.findAllWithAuthorsByIdIn(ids).stream()
+                .map(bookMapper::bookToBookDTO)
+                .toList());
+        Function<List<Long>, String> projection = ids -> json(
+            booksRepository.findViewsByIdIn(ids));
+
+        run(entities, PAGES / 10);
+        run(projection, PAGES / 10);
+
+        Result entityResult = run(entities, PAGES);
+        Result projectionResult = run(projection, PAGES);
+
+        log.info("Entities + MapStruct: {} us/page, {} KB allocated/page",
+            entityResult.micros(), entityResult.kilobytes());
+        log.info("Projection into BookView: {} us/page, {} KB allocated/page",
+            projectionResult.micros(), projectionResult.kilobytes());
+
+        assertThat(entities.apply(page(0))).hasSameSizeAs(projection.apply(page(0)));
+    }
+
+    private Result run(Function<List<Long>, String> read, int pages) {
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < pages; i++) {
+            List<Long> ids = page(i);
+            transactionTemplate.execute(status -> read.apply(ids));
+        }
+
+        return new Result((System.nanoTime() - start) / 1000 / pages,
+            (threads.getThreadAllocatedBytes(threadId) - allocatedBefore) / 1024 / pages);
+    }
+
+    private static List<Long> page(int number) {
+        long from = FIRST_ID + (long) number * PAGE_SIZE % (BOOKS - PAGE_SIZE);
+        return LongStream.range(from, from + PAGE_SIZE).boxed().toList();
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Result(long micros, long kilobytes) {
+
+    }
+}
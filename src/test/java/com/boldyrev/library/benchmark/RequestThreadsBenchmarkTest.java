@@ -0,0 +1,183 @@
+package com.boldyrev.library.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+/**
+ * Сравнение обработки запросов Tomcat на пуле платформенных потоков и на виртуальных потоках
+ * с ограничением доступа к базе размером пула Hikari. Клиенты держат заданное число
+ * одновременных запросов к поиску книг, для каждого режима выводится пропускная способность,
+ * задержки и пиковое число платформенных потоков JVM. Виртуальные потоки используются только
+ * при запуске на Java 21 и новее. Запускается явно:
+ * mvn test -Dtest=RequestThreadsBenchmarkTest -Dbenchmark=true [-Dbenchmark.concurrency=1000]
+ * [-Dbenchmark.seconds=20]
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+    "spring.jpa.properties.hibernate.show_sql=false", "logging.level.com.boldyrev=info"})
+@Sql({"/db/migration/V1__data.sql", "/db/migration/V2__trigram_search.sql",
+    "/db/migration/V4__entity_versions.sql", "/db/migration/V5__pooled_id_sequences.sql"})
+@TestPropertySource("classpath:application-test.properties")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Slf4j
+public class RequestThreadsBenchmarkTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 1000);
+
+    private static final int SECONDS = Integer.getInteger("benchmark.seconds", 20);
+
+    private static final int BOOKS = 5000;
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final Map<String, Result> RESULTS = new ConcurrentHashMap<>();
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+
+    @AfterAll
+    static void report() {
+        log.info("Java {}, {} concurrent clients, {} s per run", Runtime.version(), CONCURRENCY,
+            SECONDS);
+        RESULTS.forEach((mode, result) -> log.info(
+            "{}: {} requests/s, p50 {} ms, p99 {} ms, {} errors, peak {} platform threads",
+            mode, result.throughput(), result.p50(), result.p99(), result.errors(),
+            result.peakThreads()));
+    }
+
+    @Nested
+    @TestPropertySource(properties = "library.virtual-threads.enabled=false")
+    class PlatformThreads {
+
+        private final JdbcTemplate jdbcTemplate;
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        PlatformThreads(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @Test
+        void search_ManyConcurrentClients() throws InterruptedException {
+            RESULTS.put("Tomcat thread pool", run(jdbcTemplate, port));
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "library.virtual-threads.enabled=true")
+    class VirtualThreads {
+
+        private final JdbcTemplate jdbcTemplate;
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        VirtualThreads(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @Test
+        void search_ManyConcurrentClients() throws InterruptedException {
+            RESULTS.put("Virtual threads + database admission", run(jdbcTemplate, port));
+        }
+    }
+
+    private static Result run(JdbcTemplate jdbcTemplate, int port) throws InterruptedException {
+        fillCatalog(jdbcTemplate);
+        load(port, SECONDS / 4);
+
+        THREADS.resetPeakThreadCount();
+        Result result = load(port, SECONDS);
+        assertThat(result.completed()).isPositive();
+        return result;
+    }
+
+    private static void fillCatalog(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("""
+            INSERT INTO t_books (title, isbn, num_pages, publication_date)
+            SELECT 'Generated book ' || md5(i::text), lpad(i::text, 13, '0'), 100, '2000-01-01'
+            FROM generate_series(1, ?) i
+            """, BOOKS);
+        jdbcTemplate.update("""
+            INSERT INTO t_authors_books (author_id, book_id)
+            SELECT 1 + book_id % 8, book_id
+            FROM t_books
+            WHERE title LIKE 'Generated%'
+            """);
+    }
+
+    private static Result load(int port, int seconds) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long request = 0;
+
+        while (System.nanoTime() < deadline) {
+            inFlight.acquire();
+            long page = request++ % (BOOKS / PAGE_SIZE);
+            long start = System.nanoTime();
+            HTTP_CLIENT.sendAsync(HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                        + "/api/v1/books/search?title=generated&size=" + PAGE_SIZE + "&page="
+                        + page))
+                    .timeout(Duration.ofSeconds(30))
+                    .build(), BodyHandlers.discarding())
+                .whenComplete((response, e) -> {
+                    if (e == null && response.statusCode() == 200) {
+                        latencies.add(System.nanoTime() - start);
+                    } else {
+                        errors.incrementAndGet();
+                    }
+                    inFlight.release();
+                });
+        }
+        inFlight.acquire(CONCURRENCY);
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new Result(sorted.length / seconds, sorted.length, errors.get(),
+            percentile(sorted, 0.5), percentile(sorted, 0.99), THREADS.getPeakThreadCount());
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(
+            sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))]);
+    }
+
+    private record Result(long throughput, long completed, long errors, long p50, long p99,
+                          int peakThreads) {
+
+    }
+}
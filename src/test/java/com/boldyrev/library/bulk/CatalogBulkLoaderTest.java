@@ -0,0 +1,165 @@
+package com.boldyrev.library.bulk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.boldyrev.library.models.Author;
+import com.boldyrev.library.services.BooksService;
+import jakarta.persistence.EntityManagerFactory;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+@SpringBootTest
+@Sql({"/db/migration/V1__data.sql", "/db/migration/V4__entity_versions.sql",
+    "/db/migration/V5__pooled_id_sequences.sql"})
+@TestPropertySource("classpath:application-test.properties")
+public class CatalogBulkLoaderTest {
+
+    private final CatalogBulkLoader loader;
+
+    private final BooksService booksService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final CacheManager cacheManager;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public CatalogBulkLoaderTest(CatalogBulkLoader loader, BooksService booksService,
+        JdbcTemplate jdbcTemplate, CacheManager cacheManager,
+        EntityManagerFactory entityManagerFactory) {
+        this.loader = loader;
+        this.booksService = booksService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheManager = cacheManager;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @BeforeEach
+    void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void load_NdjsonWithNewBooks_InsertsBooksAuthorsAndLinks() {
+        String catalog = """
+            {"title": "Book 1", "isbn": "978-5-17-118366-0", "num_pages": 100, \
+            "publication_date": "2020-01-01", "authors": [{"name": "New Author", \
+            "birth_date": "1970-05-05", "country": "Country"}]}
+            {"title": "Book 2", "isbn": "9785171183677", "num_pages": 200, \
+            "publication_date": "2021-01-01", "authors": [{"name": "New Author", \
+            "birth_date": "1970-05-05", "country": "Country"}, %s]}
+            """.formatted(existingAuthorJson(7L));
+
+        BulkLoadResult result = loader.load(new StringReader(catalog), CatalogFormat.NDJSON);
+
+        assertThat(result.getRecords()).isEqualTo(2);
+        assertThat(result.getRejectedRecords()).isZero();
+        assertThat(result.getInsertedAuthors()).isEqualTo(1);
+        assertThat(result.getUpdatedAuthors()).isZero();
+        assertThat(result.getInsertedBooks()).isEqualTo(2);
+        assertThat(result.getUpdatedBooks()).isZero();
+
+        assertThat(authorNames("9785171183660")).containsExactly("New Author");
+        assertThat(authorNames("9785171183677")).hasSize(2).contains("New Author");
+    }
+
+    @Test
+    void load_CsvWithExistingISBN_UpdatesBookAndReplacesAuthors() {
+        booksService.findById(1L);
+        String catalog = """
+            isbn,title,num_pages,publication_date,author_name,author_birth_date,author_country
+            9780547928210,"Reloaded, ""title\""",500,1954-07-29,New Author,1970-05-05,Country
+            """;
+
+        BulkLoadResult result = loader.load(new StringReader(catalog), CatalogFormat.CSV);
+
+        assertThat(result.getUpdatedBooks()).isEqualTo(1);
+        assertThat(result.getInsertedBooks()).isZero();
+        assertThat(booksService.findById(1L).getTitle()).isEqualTo("Reloaded, \"title\"");
+        assertThat(booksService.findById(1L).getAuthors())
+            .extracting(Author::getName)
+            .containsExactly("New Author");
+        assertThat(booksService.findById(1L).getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void load_InvalidRecords_RejectsOnlyThem() {
+        String catalog = """
+            {"title": "Book 1", "isbn": "9785171183660", "num_pages": 0, \
+            "publication_date": "2020-01-01", "authors": []}
+            {"title": "Book 2", "isbn": "9785171183677",
+            {"title": "Book 3", "isbn": "9785171183684", "num_pages": 300, \
+            "publication_date": "2022-01-01"}
+            """;
+
+        BulkLoadResult result = loader.load(new StringReader(catalog), CatalogFormat.NDJSON);
+
+        assertThat(result.getRecords()).isEqualTo(3);
+        assertThat(result.getRejectedRecords()).isEqualTo(2);
+        assertThat(result.getInsertedBooks()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList(
+            "SELECT isbn FROM t_books WHERE isbn LIKE '978517%'", String.class))
+            .containsExactly("9785171183684");
+    }
+
+    @Test
+    void load_CsvWithQuotedLineBreaks_ReadsRecordsAcrossLines() {
+        String catalog = """
+            isbn,title,num_pages,publication_date
+            9785171183660,"First line
+            ""Second"" line",100,2020-01-01
+            9785171183677,"Title",200,2021-01-01
+            """;
+
+        BulkLoadResult result = loader.load(new StringReader(catalog), CatalogFormat.CSV);
+
+        assertThat(result.getRecords()).isEqualTo(2);
+        assertThat(result.getRejectedRecords()).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT title FROM t_books WHERE isbn = '9785171183660'", String.class))
+            .isEqualTo("First line\n\"Second\" line");
+    }
+
+    @Test
+    void load_ISBNWithWrongCheckDigit_RejectsRecord() {
+        String catalog = """
+            isbn,title,num_pages,publication_date
+            9785171183662,Title,100,2020-01-01
+            978517118366,Title,100,2020-01-01
+            """;
+
+        BulkLoadResult result = loader.load(new StringReader(catalog), CatalogFormat.CSV);
+
+        assertThat(result.getRecords()).isEqualTo(2);
+        assertThat(result.getRejectedRecords()).isEqualTo(2);
+        assertThat(result.getInsertedBooks()).isZero();
+    }
+
+    private String existingAuthorJson(long id) {
+        return jdbcTemplate.queryForObject("""
+            SELECT json_build_object('name', name, 'birth_date', birth_date, 'country', country)
+            FROM t_authors
+            WHERE author_id = ?
+            """, String.class, id);
+    }
+
+    private List<String> authorNames(String ISBN) {
+        return jdbcTemplate.queryForList("""
+            SELECT a.name
+            FROM t_authors a
+            JOIN t_authors_books ab ON a.author_id = ab.author_id
+            JOIN t_books b ON ab.book_id = b.book_id
+            WHERE b.isbn = ?
+            """, String.class, ISBN);
+    }
+}
@@ -0,0 +1,101 @@
+package com.boldyrev.library.bulk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+@SpringBootTest
+@Sql({"/db/migration/V1__data.sql", "/db/migration/V4__entity_versions.sql",
+    "/db/migration/V5__pooled_id_sequences.sql"})
+@TestPropertySource("classpath:application-test.properties")
+public class CatalogExporterTest {
+
+    private final CatalogExporter exporter;
+
+    private final CatalogBulkLoader loader;
+
+    private final ObjectMapper objectMapper;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public CatalogExporterTest(CatalogExporter exporter, CatalogBulkLoader loader,
+        ObjectMapper objectMapper, JdbcTemplate jdbcTemplate) {
+        this.exporter = exporter;
+        this.loader = loader;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Test
+    void export_NdjsonLargerThanFetchSize_WritesEveryBookOnceInIdOrder() throws Exception {
+        jdbcTemplate.update("""
+            INSERT INTO t_books (book_id, title, isbn, num_pages, publication_date)
+            SELECT 1000 + n, 'Book ' || n, 'ISBN' || n, 100, '2000-01-01'
+            FROM generate_series(1, 1500) n
+            """);
+
+        List<String> lines = export(CatalogFormat.NDJSON);
+
+        assertThat(exporter.export(new ByteArrayOutputStream(), CatalogFormat.NDJSON))
+            .isEqualTo(1512);
+        assertThat(lines).hasSize(1512);
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertThat(first.get("id").asLong()).isEqualTo(1L);
+        assertThat(first.get("isbn").asText()).isEqualTo("9780547928210");
+        assertThat(first.get("authors").get(0).get("birth_date").asText())
+            .isEqualTo("1892-01-03");
+        assertThat(objectMapper.readTree(lines.get(1511)).get("id").asLong()).isEqualTo(2500L);
+        assertThat(objectMapper.readTree(lines.get(1511)).get("authors")).isEmpty();
+    }
+
+    @Test
+    void export_Csv_WritesRowPerBookAndAuthor() {
+        List<String> lines = export(CatalogFormat.CSV);
+
+        assertThat(lines.get(0)).isEqualTo("\"id\",\"title\",\"isbn\",\"num_pages\","
+            + "\"publication_date\",\"author_id\",\"author_name\",\"author_birth_date\","
+            + "\"author_country\"");
+        assertThat(lines).hasSize(15);
+        assertThat(lines).filteredOn(line -> line.startsWith("\"11\",")).hasSize(2);
+    }
+
+    @Test
+    void export_ExportedCatalogIsLoaded_NothingChanges() {
+        jdbcTemplate.update("UPDATE t_books SET title = 'First' || chr(10) || 'second' "
+            + "WHERE book_id = 1");
+        jdbcTemplate.update("""
+            UPDATE t_books b
+            SET isbn = v.isbn
+            FROM (VALUES (7, '9780451456892'), (8, '9780765339997'), (11, '9785477056156'),
+                         (12, '9785699578702')) v(book_id, isbn)
+            WHERE b.book_id = v.book_id
+            """);
+        String catalog = String.join("\n", export(CatalogFormat.CSV));
+
+        BulkLoadResult result = loader.load(new StringReader(catalog), CatalogFormat.CSV);
+
+        assertThat(result.getRejectedRecords()).isZero();
+        assertThat(result.getInsertedAuthors()).isZero();
+        assertThat(result.getUpdatedAuthors()).isZero();
+        assertThat(result.getInsertedBooks()).isZero();
+        assertThat(result.getUpdatedBooks()).isZero();
+    }
+
+    private List<String> export(CatalogFormat format) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exporter.export(output, format);
+        return output.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+}
@@ -0,0 +1,176 @@
+package com.boldyrev.library.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.boldyrev.library.dto.AuthorView;
+import com.boldyrev.library.exceptions.EntityNotFoundException;
+import com.boldyrev.library.models.Author;
+import com.boldyrev.library.models.Book;
+import com.boldyrev.library.repositories.AuthorsRepository;
+import com.boldyrev.library.repositories.BooksRepository;
+import com.boldyrev.library.services.AuthorsService;
+import com.boldyrev.library.services.BooksService;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+@SpringBootTest
+@Sql({"/db/migration/V1__data.sql", "/db/migration/V4__entity_versions.sql",
+    "/db/migration/V5__pooled_id_sequences.sql"})
+@TestPropertySource("classpath:application-test.properties")
+public class CacheEvictionTest {
+
+    private final AuthorsService authorsService;
+
+    private final BooksService booksService;
+
+    private final CacheManager cacheManager;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @SpyBean
+    private final AuthorsRepository authorsRepository;
+
+    @SpyBean
+    private final BooksRepository booksRepository;
+
+    @Autowired
+    public CacheEvictionTest(AuthorsService authorsService, BooksService booksService,
+        CacheManager cacheManager, EntityManagerFactory entityManagerFactory,
+        AuthorsRepository authorsRepository, BooksRepository booksRepository) {
+        this.authorsService = authorsService;
+        this.booksService = booksService;
+        this.cacheManager = cacheManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.authorsRepository = authorsRepository;
+        this.booksRepository = booksRepository;
+    }
+
+    @BeforeEach
+    void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void deleteById_AuthorIsDeleted_BookAuthorsAreReloaded() {
+        assertThat(booksService.findById(11L).getAuthors()).hasSize(2);
+
+        authorsService.deleteById(6L);
+
+        assertThat(booksService.findById(11L).getAuthors())
+            .extracting(Author::getId)
+            .containsExactly(1L);
+    }
+
+    @Test
+    void findById_AuthorIsRead_AuthorIsInSecondLevelCache() {
+        authorsService.findById(1L);
+
+        assertThat(entityManagerFactory.getCache().contains(Author.class, 1L)).isTrue();
+    }
+
+    @Test
+    void updateById_AuthorIsChanged_EvictsAuthorAndAuthorBooks() {
+        authorsService.findById(7L);
+        booksService.findById(12L);
+
+        authorsService.updateById(7L,
+            new Author(null, "Lev Tolstoy", LocalDate.of(1828, 9, 9), "Russia", null, null));
+
+        assertThat(authorsService.findById(7L).getName()).isEqualTo("Lev Tolstoy");
+        assertThat(booksService.findById(12L).getAuthors())
+            .extracting(Author::getName)
+            .contains("Lev Tolstoy");
+    }
+
+    @Test
+    void save_AuthorIsCreated_PageIncludesNewAuthor() {
+        assertThat(authorsService.findAllByPage(0, 3).getTotalElements()).isEqualTo(8);
+
+        authorsService.save(new Author(null, "New Author", LocalDate.of(1990, 1, 1), "Country",
+            null, null));
+
+        assertThat(authorsService.findAllByPage(0, 3).getTotalElements()).isEqualTo(9);
+    }
+
+    @Test
+    void findAllByPage_PageIsRequestedTwice_QueriesPageOnce() {
+        List<Long> ids = authorsService.findAllByPage(0, 3).map(AuthorView::id).toList();
+
+        assertThat(authorsService.findAllByPage(0, 3).map(AuthorView::id).toList())
+            .isEqualTo(ids);
+        verify(authorsRepository, times(1)).findAllViews(any(Pageable.class));
+    }
+
+    @Test
+    void findAllByPage_AuthorIsChanged_PageHasNewName() {
+        AuthorView first = authorsService.findAllByPage(0, 3).getContent().get(0);
+
+        authorsService.patchById(first.id(),
+            new Author(null, first.name() + " Jr.", null, null, null, null));
+
+        assertThat(authorsService.findAllByPage(0, 3).getContent())
+            .extracting(AuthorView::name)
+            .contains(first.name() + " Jr.");
+        verify(authorsRepository, times(2)).findAllViews(any(Pageable.class));
+    }
+
+    @Test
+    void updateById_BookIsChanged_EvictsBook() {
+        Book book = booksService.findById(1L);
+
+        booksService.updateById(1L, new Book(null, "New title", book.getISBN(),
+            book.getNumPages(), book.getPublicationDate(), new HashSet<>(book.getAuthors()), null));
+
+        assertThat(booksService.findById(1L).getTitle()).isEqualTo("New title");
+    }
+
+    @Test
+    void deleteById_BookIsDeleted_EvictsBook() {
+        booksService.findById(2L);
+
+        booksService.deleteById(2L);
+
+        assertThatThrownBy(() -> booksService.findById(2L))
+            .isInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    void search_FiltersDifferOnlyInCase_SearchesOnce() {
+        booksService.search("\u0431\u0440\u0430\u0442\u0441\u0442\u0432\u043e", "", "", 0, 10);
+        booksService.search("\u0411\u0420\u0410\u0422\u0421\u0422\u0412\u041e", "", "", 0, 10);
+
+        verify(booksRepository, times(1))
+            .findIdsByParameters(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void search_BookIsChanged_SearchesAgain() {
+        int found = booksService.search("", "", "", 0, 20).getNumberOfElements();
+        Book book = booksService.findById(1L);
+
+        booksService.deleteById(book.getId());
+
+        assertThat(booksService.search("", "", "", 0, 20).getNumberOfElements())
+            .isEqualTo(found - 1);
+        verify(booksRepository, times(2))
+            .findIdsByParameters(anyString(), anyString(), anyString(), any());
+    }
+}
@@ -0,0 +1,106 @@
+package com.boldyrev.library.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.boldyrev.library.dto.AuthorView;
+import com.boldyrev.library.dto.BookView;
+import com.boldyrev.library.models.Author;
+import com.boldyrev.library.models.Book;
+import com.boldyrev.library.util.json.JsonFragment;
+import com.boldyrev.library.util.mappers.AuthorMapper;
+import com.boldyrev.library.util.mappers.AuthorMapperImpl;
+import com.boldyrev.library.util.mappers.BookMapper;
+import com.boldyrev.library.util.mappers.BookMapperImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JsonFragmentCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final AuthorMapper authorMapper = new AuthorMapperImpl();
+
+    private final BookMapper bookMapper = new BookMapperImpl();
+
+    private final JsonFragmentCache jsonFragments;
+
+    private final Author author = new Author(7L, "Leo Tolstoy", LocalDate.of(1828, 9, 9),
+        "Russia", new HashSet<>(), 0L);
+
+    private final Book book = new Book(12L, "War and Peace", "9785170902187", 1300,
+        LocalDate.of(1869, 1, 1), new HashSet<>(Set.of(author)), 0L);
+
+    private final AuthorView authorView = new AuthorView(7L, "Leo Tolstoy",
+        LocalDate.of(1828, 9, 9), "Russia", 0L);
+
+    private final BookView bookView = new BookView(12L, "War and Peace", "9785170902187", 1300,
+        LocalDate.of(1869, 1, 1), List.of(authorView), 0L);
+
+    public JsonFragmentCacheTest() {
+        ReflectionTestUtils.setField(bookMapper, "authorMapper", authorMapper);
+        jsonFragments = new JsonFragmentCache(
+            new ConcurrentMapCacheManager(CacheConfig.BOOK_FRAGMENTS, CacheConfig.AUTHOR_FRAGMENTS),
+            objectMapper);
+    }
+
+    @Test
+    void book_PageOfFragments_SerializedAsPageOfDTO() throws Exception {
+        String expected = objectMapper.writeValueAsString(
+            new PageImpl<>(List.of(bookMapper.bookToBookDTO(book))));
+
+        String actual = objectMapper.writeValueAsString(
+            new PageImpl<>(List.of(jsonFragments.book(bookView))));
+
+        assertThat(objectMapper.readTree(actual)).isEqualTo(objectMapper.readTree(expected));
+    }
+
+    @Test
+    void book_VersionsAreNotChanged_ReturnsCachedFragment() {
+        JsonFragment fragment = jsonFragments.book(bookView);
+
+        assertThat(jsonFragments.book(bookView)).isSameAs(fragment);
+    }
+
+    @Test
+    void book_AuthorIsChanged_SerializesAgain() throws Exception {
+        JsonFragment fragment = jsonFragments.book(bookView);
+
+        JsonFragment changed = jsonFragments.book(new BookView(12L, "War and Peace",
+            "9785170902187", 1300, LocalDate.of(1869, 1, 1), List.of(new AuthorView(7L,
+            "Lev Tolstoy", LocalDate.of(1828, 9, 9), "Russia", 1L)), 0L));
+
+        assertThat(changed).isNotSameAs(fragment);
+        assertThat(objectMapper.readTree(changed.toString()).path("title").asText())
+            .isEqualTo("War and Peace");
+        assertThat(changed.toString()).contains("Lev Tolstoy");
+    }
+
+    @Test
+    void author_FragmentOfView_SerializedAsDTO() throws Exception {
+        JsonFragment fragment = jsonFragments.author(authorView);
+
+        assertThat(objectMapper.readTree(fragment.toString())).isEqualTo(
+            objectMapper.readTree(
+                objectMapper.writeValueAsString(authorMapper.authorToAuthorDTO(author))));
+    }
+
+    @Test
+    void author_VersionIsChanged_SerializesAgain() {
+        JsonFragment fragment = jsonFragments.author(authorView);
+
+        AuthorView changed = new AuthorView(7L, "Leo Tolstoy", LocalDate.of(1828, 9, 9),
+            "Russian Empire", 1L);
+
+        assertThat(jsonFragments.author(changed)).isNotSameAs(fragment);
+        assertThat(jsonFragments.author(changed).toString()).contains("Russian Empire");
+    }
+}
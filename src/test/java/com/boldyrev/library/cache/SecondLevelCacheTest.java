@@ -0,0 +1,93 @@
+package com.boldyrev.library.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.boldyrev.library.models.Author;
+import com.boldyrev.library.models.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Sql({"/db/migration/V1__data.sql", "/db/migration/V4__entity_versions.sql",
+    "/db/migration/V5__pooled_id_sequences.sql"})
+@TestPropertySource("classpath:application-test.properties")
+public class SecondLevelCacheTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final SessionFactory sessionFactory;
+
+    private final Statistics statistics;
+
+    @Autowired
+    public SecondLevelCacheTest(TransactionTemplate transactionTemplate,
+        EntityManagerFactory entityManagerFactory) {
+        this.transactionTemplate = transactionTemplate;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.statistics = sessionFactory.getStatistics();
+    }
+
+    @BeforeEach
+    void clearCache() {
+        sessionFactory.getCache().evictAllRegions();
+        statistics.clear();
+    }
+
+    @Test
+    void find_BookIsReadAgain_NoStatementsAreExecuted() {
+        long coldStatements = readBookWithAuthors(11L);
+        long warmStatements = readBookWithAuthors(11L);
+
+        assertThat(coldStatements).isGreaterThan(0);
+        assertThat(warmStatements).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThan(0);
+    }
+
+    @Test
+    void find_AuthorBooksAreReadAgain_NoStatementsAreExecuted() {
+        long coldStatements = readAuthorWithBooks(1L);
+        long warmStatements = readAuthorWithBooks(1L);
+
+        assertThat(coldStatements).isGreaterThan(0);
+        assertThat(warmStatements).isZero();
+    }
+
+    @Test
+    void update_BookIsChanged_CacheReturnsNewState() {
+        readBookWithAuthors(1L);
+
+        transactionTemplate.executeWithoutResult(
+            status -> entityManager.find(Book.class, 1L).setTitle("New title"));
+
+        String title = transactionTemplate.execute(
+            status -> entityManager.find(Book.class, 1L).getTitle());
+        assertThat(title).isEqualTo("New title");
+    }
+
+    private long readBookWithAuthors(long id) {
+        long before = statistics.getPrepareStatementCount();
+        transactionTemplate.executeWithoutResult(status -> entityManager.find(Book.class, id)
+            .getAuthors().forEach(Author::getName));
+        return statistics.getPrepareStatementCount() - before;
+    }
+
+    private long readAuthorWithBooks(long id) {
+        long before = statistics.getPrepareStatementCount();
+        transactionTemplate.executeWithoutResult(status -> entityManager.find(Author.class, id)
+            .getBooks().forEach(Book::getTitle));
+        return statistics.getPrepareStatementCount() - before;
+    }
+}
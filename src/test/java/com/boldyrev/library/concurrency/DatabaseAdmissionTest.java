@@ -0,0 +1,133 @@
+package com.boldyrev.library.concurrency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.boldyrev.library.exceptions.ServiceUnavailableException;
+import com.boldyrev.library.services.AuthorsService;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest(properties = {"library.virtual-threads.enabled=true",
+    "library.virtual-threads.admission-timeout=200ms"})
+@AutoConfigureMockMvc
+@Sql({"/db/migration/V1__data.sql", "/db/migration/V4__entity_versions.sql",
+    "/db/migration/V5__pooled_id_sequences.sql"})
+@TestPropertySource("classpath:application-test.properties")
+public class DatabaseAdmissionTest {
+
+    private final DatabaseAdmission admission;
+
+    private final AuthorsService authorsService;
+
+    private final DataSource dataSource;
+
+    private final MockMvc mockMvc;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public DatabaseAdmissionTest(DatabaseAdmission admission, AuthorsService authorsService,
+        DataSource dataSource, MockMvc mockMvc, JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager) {
+        this.admission = admission;
+        this.authorsService = authorsService;
+        this.dataSource = dataSource;
+        this.mockMvc = mockMvc;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void size_HikariDataSource_EqualsMaximumPoolSize() throws Exception {
+        assertThat(admission.getSize())
+            .isEqualTo(dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize());
+    }
+
+    @Test
+    void transactionTemplate_NestedTransactionalCall_TakesSinglePermitUntilCompletion() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            authorsService.findSliceByPage(0, 5);
+
+            assertThat(admission.getAvailable()).isEqualTo(admission.getSize() - 1);
+        });
+
+        assertThat(admission.getAvailable()).isEqualTo(admission.getSize());
+    }
+
+    @Test
+    void transactionalCall_AllPermitsHeld_ThrowsAfterTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService holders = holdAllPermits(release);
+        try {
+            assertThatThrownBy(() -> authorsService.findSliceByPage(0, 5))
+                .hasRootCauseInstanceOf(ServiceUnavailableException.class);
+            assertThatThrownBy(() -> transactionTemplate.execute(
+                status -> jdbcTemplate.queryForObject("SELECT 1", Integer.class)))
+                .hasRootCauseInstanceOf(ServiceUnavailableException.class);
+            assertThatThrownBy(() -> jdbcTemplate.queryForObject("SELECT 1", Integer.class))
+                .isInstanceOf(ServiceUnavailableException.class);
+        } finally {
+            release.countDown();
+            holders.shutdown();
+            holders.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(admission.getAvailable()).isEqualTo(admission.getSize());
+    }
+
+    @Test
+    void request_AllPermitsHeld_ReturnsServiceUnavailable() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService holders = holdAllPermits(release);
+        try {
+            mockMvc.perform(get("/api/v1/authors/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.message").exists());
+        } finally {
+            release.countDown();
+            holders.shutdown();
+            holders.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private ExecutorService holdAllPermits(CountDownLatch release) throws InterruptedException {
+        ExecutorService holders = Executors.newFixedThreadPool(admission.getSize());
+        CountDownLatch admitted = new CountDownLatch(admission.getSize());
+        for (int i = 0; i < admission.getSize(); i++) {
+            holders.execute(() -> {
+                admission.enter();
+                try {
+                    admitted.countDown();
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    admission.exit();
+                }
+            });
+        }
+        assertThat(admitted.await(5, TimeUnit.SECONDS)).isTrue();
+        return holders;
+    }
+}
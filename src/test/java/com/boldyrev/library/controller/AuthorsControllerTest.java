@@ -1,12 +1,15 @@
 package com.boldyrev.library.controller;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -14,10 +17,16 @@ import com.boldyrev.library.dto.AuthorDTO;
 import com.boldyrev.library.exceptions.DataNotFoundException;
 import com.boldyrev.library.exceptions.EntityNotFoundException;
 import com.boldyrev.library.exceptions.ValidationException;
+import com.boldyrev.library.search.AuthorsSuggestIndex;
 import com.boldyrev.library.services.AuthorsService;
+import com.boldyrev.library.util.http.MediaTypes;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.ConstraintViolationException;
 import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
@@ -29,6 +38,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.jdbc.Sql;
@@ -36,7 +46,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
 @SpringBootTest
-@Sql("/db/migration/V1__data.sql")
+@Sql({"/db/migration/V1__data.sql", "/db/migration/V4__entity_versions.sql",
+    "/db/migration/V5__pooled_id_sequences.sql"})
 @Transactional
 @AutoConfigureMockMvc
 @TestPropertySource("classpath:application-test.properties")
@@ -49,12 +60,15 @@ public class AuthorsControllerTest extends ControllerTest {
     @SpyBean
     private final AuthorsService authorsService;
 
+    private final AuthorsSuggestIndex suggestIndex;
+
     @Autowired
     public AuthorsControllerTest(MockMvc mockMvc, ObjectMapper objectMapper,
-        AuthorsService authorsService) {
+        AuthorsService authorsService, AuthorsSuggestIndex suggestIndex) {
         this.mockMvc = mockMvc;
         this.objectMapper = objectMapper;
         this.authorsService = authorsService;
+        this.suggestIndex = suggestIndex;
     }
 
     @ParameterizedTest
@@ -93,6 +107,139 @@ public class AuthorsControllerTest extends ControllerTest {
             .andExpect(r -> assertThatExceptionOfType(DataNotFoundException.class));
     }
 
+    @ParameterizedTest
+    @CsvSource({"0,3,false", "2,3,true"})
+    void getAllByPage_TotalIsNone_ReturnsSliceWithoutTotals(int page, int size, boolean last)
+        throws Exception {
+        mockMvc.perform(get("/api/v1/authors")
+                .params(createPageAndSizeParams(page, size))
+                .param("total", "NONE"))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.content").isNotEmpty())
+            .andExpect(jsonPath("$.last", Matchers.equalTo(last)))
+            .andExpect(jsonPath("$.pageable.pageNumber", Matchers.equalTo(page)))
+            .andExpect(jsonPath("$.totalElements").doesNotExist());
+
+        Mockito.verify(authorsService).findSliceByPage(page, size);
+    }
+
+    @Test
+    void getAllByPage_TotalIsEstimatedForSmallResult_ReturnsExactTotal() throws Exception {
+        mockMvc.perform(get("/api/v1/authors")
+                .params(createPageAndSizeParams(0, 10))
+                .param("total", "ESTIMATED"))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.totalElements", Matchers.equalTo(8)))
+            .andExpect(jsonPath("$.totalExact", Matchers.equalTo(true)));
+
+        Mockito.verify(authorsService).findAllEstimated(0, 10);
+    }
+
+    @Test
+    void suggest_PrefixMatchesNameWord_ReturnsAuthors() throws Exception {
+        suggestIndex.rebuild();
+
+        mockMvc.perform(get("/api/v1/authors/suggest")
+                .param("prefix", "\u0442\u043e\u043b\u043a"))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.body[*].id", Matchers.containsInAnyOrder(1, 6)))
+            .andExpect(jsonPath("$.body[0].country").doesNotExist());
+    }
+
+    @Test
+    void getById_EntityExists_ReturnsEntity() throws Exception {
+        mockMvc.perform(get("/api/v1/authors/{id}", 1))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.body.id", Matchers.equalTo(1)));
+    }
+
+    @Test
+    void getById_EntityNotExists_ReturnsNotFound() throws Exception {
+        mockMvc.perform(get("/api/v1/authors/{id}", 100))
+            .andDo(print())
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getAllByPage_IfNoneMatchIsCurrentETag_ReturnsNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/authors"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(eTag).startsWith("W/");
+
+        mockMvc.perform(get("/api/v1/authors")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andDo(print())
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    void getAllByPage_IfNoneMatchIsOutdated_ReturnsPage() throws Exception {
+        mockMvc.perform(get("/api/v1/authors")
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"outdated\""))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(jsonPath("$.content").isNotEmpty());
+    }
+
+    @Test
+    void getById_IfNoneMatchIsCurrentETag_ReturnsNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/authors/{id}", 1))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/v1/authors/{id}", 1)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getAllByPage_CursorIsUsed_ReturnsAllAuthorsPageByPage() throws Exception {
+        Set<Long> ids = new HashSet<>();
+        String cursor = "";
+        int pages = 0;
+
+        while (cursor != null) {
+            JsonNode page = objectMapper.readTree(mockMvc.perform(get("/api/v1/authors")
+                    .param("cursor", cursor)
+                    .param("size", "3"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.size", Matchers.equalTo(3)))
+                .andReturn().getResponse().getContentAsString());
+
+            page.get("content").forEach(a -> ids.add(a.get("id").asLong()));
+            cursor = page.hasNonNull("next") ? page.get("next").asText() : null;
+            pages++;
+        }
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(ids).hasSize(8);
+    }
+
+    @Test
+    void getAllByPage_CursorIsInvalid_ThrowsValidationException() throws Exception {
+        mockMvc.perform(get("/api/v1/authors")
+                .param("cursor", "not a cursor"))
+            .andDo(print())
+            .andExpect(status().isBadRequest())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(r -> assertThatExceptionOfType(ValidationException.class));
+    }
+
     @Test
     void create_AuthorDTOIsValid_SavesAuthor() throws Exception {
         AuthorDTO author = new AuthorDTO(null, "Name", LocalDate.now(), "Country");
@@ -111,6 +258,33 @@ public class AuthorsControllerTest extends ControllerTest {
             .andExpect(jsonPath("$.body.country", Matchers.equalTo(author.getCountry())));
     }
 
+    @Test
+    void createBatch_SomeAuthorsAreInvalid_SavesValidAuthorsAndReportsErrors() throws Exception {
+        List<AuthorDTO> authors = List.of(
+            new AuthorDTO(null, "First", LocalDate.of(1990, 1, 1), "Country"),
+            new AuthorDTO(null, "", LocalDate.of(1990, 1, 1), "Country"),
+            new AuthorDTO(null, "Third", LocalDate.of(1990, 1, 1), "Country"));
+
+        String response = mockMvc.perform(post("/api/v1/authors/batch")
+                .content(objectMapper.writeValueAsString(authors))
+                .contentType(MediaType.APPLICATION_JSON))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.body", Matchers.hasSize(3)))
+            .andExpect(jsonPath("$.body[0].id", Matchers.notNullValue()))
+            .andExpect(jsonPath("$.body[1].index", Matchers.equalTo(1)))
+            .andExpect(jsonPath("$.body[1].error", Matchers.containsString("name")))
+            .andExpect(jsonPath("$.body[2].id", Matchers.notNullValue()))
+            .andExpect(jsonPath("$.message", Matchers.equalTo("2 of 3 authors saved")))
+            .andReturn().getResponse().getContentAsString();
+
+        long id = objectMapper.readTree(response).path("body").path(2).path("id").asLong();
+
+        mockMvc.perform(get("/api/v1/authors/{id}", id))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.body.name", Matchers.equalTo("Third")));
+    }
+
     @ParameterizedTest
     @MethodSource("getInvalidAuthors")
     void create_AuthorDTOIsInvalid_ThrowsValidationException(AuthorDTO author) throws Exception {
@@ -156,6 +330,31 @@ public class AuthorsControllerTest extends ControllerTest {
             .andExpect(r -> assertThatExceptionOfType(ValidationException.class));
     }
 
+    @Test
+    void patchById_OnlyCountryIsSupplied_ReturnsUpdatedAuthor() throws Exception {
+        mockMvc.perform(patch("/api/v1/authors/1")
+                .content("{\"country\": \"Country\"}")
+                .contentType(MediaTypes.APPLICATION_MERGE_PATCH_JSON_VALUE))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.body.country", Matchers.equalTo("Country")))
+            .andExpect(jsonPath("$.body.birth_date", Matchers.equalTo("1892-01-03")));
+    }
+
+    @Test
+    void patchById_SuppliedNameIsBlank_ThrowsValidationException() throws Exception {
+        mockMvc.perform(patch("/api/v1/authors/1")
+                .content("{\"name\": \" \"}")
+                .contentType(MediaTypes.APPLICATION_MERGE_PATCH_JSON_VALUE))
+            .andDo(print())
+            .andExpect(status().isBadRequest())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(r -> assertThatExceptionOfType(ValidationException.class));
+
+        Mockito.verifyNoInteractions(authorsService);
+    }
+
     @Test
     void updateById_IdIsNotExists_ThrowsEntityNotFoundException() throws Exception {
         AuthorDTO author = new AuthorDTO(null, "Name", LocalDate.now(), "Country");
@@ -182,6 +381,25 @@ public class AuthorsControllerTest extends ControllerTest {
         Mockito.verify(authorsService).deleteById(id);
     }
 
+    @Test
+    void deleteBooksById_AuthorHasBooks_ReturnsNumberOfDeletedBooks() throws Exception {
+        mockMvc.perform(delete("/api/v1/authors/2/books"))
+            .andDo(print())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.body", Matchers.equalTo(2)))
+            .andExpect(jsonPath("$.message", Matchers.equalTo("2 books deleted")));
+    }
+
+    @Test
+    void deleteBooksById_IdIsNotExists_ThrowsEntityNotFoundException() throws Exception {
+        mockMvc.perform(delete("/api/v1/authors/999/books"))
+            .andDo(print())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotFound())
+            .andExpect(r -> assertThatExceptionOfType(EntityNotFoundException.class));
+    }
+
     public static Stream<AuthorDTO> getInvalidAuthors() {
         return Stream.of(new AuthorDTO(1l, "Name", LocalDate.now(), "Country"),
             new AuthorDTO(null, null, LocalDate.now(), "Country"),
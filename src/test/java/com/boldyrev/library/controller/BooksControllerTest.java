@@ -1,16 +1,21 @@
 package com.boldyrev.library.controller;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.boldyrev.library.dto.AuthorDTO;
@@ -20,11 +25,15 @@ import com.boldyrev.library.exceptions.EntityNotFoundException;
 import com.boldyrev.library.exceptions.ValidationException;
 import com.boldyrev.library.models.Book;
 import com.boldyrev.library.services.BooksService;
+import com.boldyrev.library.util.http.MediaTypes;
 import com.boldyrev.library.util.mappers.BookMapper;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.ConstraintViolationException;
 import java.nio.charset.Charset;
 import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
 import org.hamcrest.Matchers;
@@ -33,6 +42,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -43,10 +53,13 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @SpringBootTest
-@Sql("/db/migration/V1__data.sql")
+@Sql({"/db/migration/V1__data.sql", "/db/migration/V4__entity_versions.sql",
+    "/db/migration/V5__pooled_id_sequences.sql"})
 @Transactional
 @AutoConfigureMockMvc
 @TestPropertySource("classpath:application-test.properties")
@@ -138,6 +151,119 @@ public class BooksControllerTest extends ControllerTest {
             .search(anyString(), anyString(), anyString(), anyInt(), anyInt());
     }
 
+    @ParameterizedTest
+    @CsvSource({"0,5,false", "2,5,true"})
+    void search_TotalIsNone_ReturnsSliceWithoutTotals(int page, int size, boolean last)
+        throws Exception {
+        mockMvc.perform(get("/api/v1/books/search")
+                .params(createPageAndSizeParams(page, size))
+                .param("total", "NONE"))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.content").isNotEmpty())
+            .andExpect(jsonPath("$.last", Matchers.equalTo(last)))
+            .andExpect(jsonPath("$.pageable.pageNumber", Matchers.equalTo(page)))
+            .andExpect(jsonPath("$.totalElements").doesNotExist());
+
+        Mockito.verify(booksService).searchSlice("", "", "", page, size);
+    }
+
+    @Test
+    void search_TotalIsEstimatedForSmallResult_ReturnsExactTotal() throws Exception {
+        mockMvc.perform(get("/api/v1/books/search")
+                .params(createPageAndSizeParams(0, 20))
+                .param("total", "ESTIMATED"))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.totalElements", Matchers.equalTo(12)))
+            .andExpect(jsonPath("$.totalExact", Matchers.equalTo(true)));
+
+        Mockito.verify(booksService).searchEstimated("", "", "", 0, 20);
+    }
+
+    @Test
+    void getById_EntityExists_ReturnsEntity() throws Exception {
+        mockMvc.perform(get("/api/v1/books/{id}", 1))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.body.id", Matchers.equalTo(1)))
+            .andExpect(jsonPath("$.body.authors", Matchers.hasSize(1)));
+    }
+
+    @Test
+    void getById_EntityNotExists_ReturnsNotFound() throws Exception {
+        mockMvc.perform(get("/api/v1/books/{id}", 100))
+            .andDo(print())
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void search_IfNoneMatchIsCurrentETag_ReturnsNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/books/search"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(eTag).startsWith("W/");
+
+        mockMvc.perform(get("/api/v1/books/search")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andDo(print())
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    void search_IfNoneMatchIsOutdated_ReturnsPage() throws Exception {
+        mockMvc.perform(get("/api/v1/books/search")
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"outdated\""))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(jsonPath("$.content").isNotEmpty());
+    }
+
+    @Test
+    void getById_IfNoneMatchIsCurrentETag_ReturnsNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/books/{id}", 1))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/v1/books/{id}", 1)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void search_CursorIsUsed_ReturnsAllBooksPageByPage() throws Exception {
+        Set<Long> ids = new HashSet<>();
+        String cursor = "";
+        int pages = 0;
+
+        while (cursor != null) {
+            JsonNode page = objectMapper.readTree(mockMvc.perform(get("/api/v1/books/search")
+                    .param("cursor", cursor)
+                    .param("size", "5"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.size", Matchers.equalTo(5)))
+                .andReturn().getResponse().getContentAsString());
+
+            page.get("content").forEach(b -> ids.add(b.get("id").asLong()));
+            cursor = page.hasNonNull("next") ? page.get("next").asText() : null;
+            pages++;
+        }
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(ids).hasSize(12);
+        Mockito.verify(booksService, Mockito.times(3))
+            .searchAfter(anyString(), anyString(), anyString(), anyString(), anyInt());
+    }
+
     @ParameterizedTest
     @CsvSource({"-1,1", "0, 0", "0,-1"})
     void search_PageOrSizeParametersIsInvalid_ThrowsValidationException(int page, int size)
@@ -174,6 +300,99 @@ public class BooksControllerTest extends ControllerTest {
         Mockito.verify(booksService).save(any());
     }
 
+    @Test
+    void createBatch_SomeBooksAreInvalid_SavesValidBooksAndReportsErrors() throws Exception {
+        List<BookDTO> books = List.of(
+            new BookDTO(null, "Title", "9785170902194", 100, LocalDate.of(2000, 1, 1),
+                Set.of(new AuthorDTO(1L, null, null, null))),
+            new BookDTO(null, "", "9785170902200", 100, LocalDate.of(2000, 1, 1),
+                Set.of(new AuthorDTO(1L, null, null, null))),
+            new BookDTO(null, "Title", "9780547928210", 100, LocalDate.of(2000, 1, 1),
+                Set.of(new AuthorDTO(1L, null, null, null))),
+            new BookDTO(null, "Title", "9785170902217", 100, LocalDate.of(2000, 1, 1),
+                Set.of(new AuthorDTO(999L, null, null, null))),
+            new BookDTO(null, "Title", "978-5-17-090219-4", 100, LocalDate.of(2000, 1, 1),
+                Set.of(new AuthorDTO(1L, null, null, null))));
+
+        String response = mockMvc.perform(post("/api/v1/books/batch")
+                .content(objectMapper.writeValueAsString(books))
+                .contentType(MediaType.APPLICATION_JSON))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.body", Matchers.hasSize(5)))
+            .andExpect(jsonPath("$.body[0].id", Matchers.notNullValue()))
+            .andExpect(jsonPath("$.body[1].error", Matchers.containsString("title")))
+            .andExpect(jsonPath("$.body[2].error", Matchers.containsString("ISBN")))
+            .andExpect(jsonPath("$.body[3].error", Matchers.containsString("999")))
+            .andExpect(jsonPath("$.body[4].error", Matchers.containsString("ISBN")))
+            .andExpect(jsonPath("$.message", Matchers.equalTo("1 of 5 books saved")))
+            .andReturn().getResponse().getContentAsString();
+
+        long id = objectMapper.readTree(response).path("body").path(0).path("id").asLong();
+
+        mockMvc.perform(get("/api/v1/books/{id}", id))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.body.isbn", Matchers.equalTo("9785170902194")))
+            .andExpect(jsonPath("$.body.authors", Matchers.hasSize(1)));
+    }
+
+    @Test
+    void upsertByISBN_ISBNIsNew_ReturnsCreatedBook() throws Exception {
+        BookDTO book = new BookDTO(null, "Title", "9785170902194", 100, LocalDate.of(2000, 1, 1),
+            Set.of(new AuthorDTO(1L, null, null, null)));
+
+        mockMvc.perform(put("/api/v1/books/isbn/{isbn}", "978-5-17-090219-4")
+                .content(objectMapper.writeValueAsString(book))
+                .contentType(MediaType.APPLICATION_JSON))
+            .andDo(print())
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.message", Matchers.equalTo("Book inserted")))
+            .andExpect(jsonPath("$.body.id", Matchers.notNullValue()))
+            .andExpect(jsonPath("$.body.isbn", Matchers.equalTo("9785170902194")))
+            .andExpect(jsonPath("$.body.authors", Matchers.hasSize(1)));
+    }
+
+    @Test
+    void upsertByISBN_ISBNInPathDiffers_ReturnsBadRequest() throws Exception {
+        BookDTO book = new BookDTO(null, "Title", "9785170902194", 100, LocalDate.of(2000, 1, 1),
+            Set.of(new AuthorDTO(1L, null, null, null)));
+
+        mockMvc.perform(put("/api/v1/books/isbn/{isbn}", "9780547928210")
+                .content(objectMapper.writeValueAsString(book))
+                .contentType(MediaType.APPLICATION_JSON))
+            .andDo(print())
+            .andExpect(status().isBadRequest());
+
+        Mockito.verify(booksService, Mockito.never()).upsertAll(any());
+    }
+
+    @Test
+    void upsertBatch_NewExistingAndRepeatedISBNs_ReportsEachBook() throws Exception {
+        List<BookDTO> books = List.of(
+            new BookDTO(null, "Title", "9785170902194", 100, LocalDate.of(2000, 1, 1),
+                Set.of(new AuthorDTO(1L, null, null, null))),
+            new BookDTO(null, "New title", "9780547928210", 100, LocalDate.of(2000, 1, 1),
+                Set.of(new AuthorDTO(1L, null, null, null))),
+            new BookDTO(null, "Title", "978-5-17-090219-4", 100, LocalDate.of(2000, 1, 1),
+                Set.of(new AuthorDTO(1L, null, null, null))),
+            new BookDTO(null, "", "9785170902200", 100, LocalDate.of(2000, 1, 1),
+                Set.of(new AuthorDTO(1L, null, null, null))));
+
+        mockMvc.perform(put("/api/v1/books/isbn/batch")
+                .content(objectMapper.writeValueAsString(books))
+                .contentType(MediaType.APPLICATION_JSON))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.body", Matchers.hasSize(4)))
+            .andExpect(jsonPath("$.body[0].status", Matchers.equalTo("INSERTED")))
+            .andExpect(jsonPath("$.body[1].status", Matchers.equalTo("UPDATED")))
+            .andExpect(jsonPath("$.body[1].id", Matchers.equalTo(1)))
+            .andExpect(jsonPath("$.body[2].error", Matchers.containsString("repeated")))
+            .andExpect(jsonPath("$.body[3].error", Matchers.containsString("title")))
+            .andExpect(jsonPath("$.message",
+                Matchers.equalTo("1 inserted, 1 updated, 0 unchanged of 4 books")));
+    }
+
     @ParameterizedTest
     @MethodSource("getInvalidBooks")
     void create_AuthorDTOIsInvalid_ThrowsValidationException(BookDTO book) throws Exception {
@@ -229,6 +448,51 @@ public class BooksControllerTest extends ControllerTest {
         Mockito.verifyNoInteractions(booksService);
     }
 
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void export_FormatIsCsv_StreamsCatalog() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/books/export").param("format", "CSV"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("text/csv;charset=UTF-8"))
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"catalog.csv\""))
+            .andExpect(content().string(Matchers.startsWith("\"id\",\"title\",")));
+    }
+
+    @Test
+    void patchById_OnlyNumPagesIsSupplied_ReturnsUpdatedBook() throws Exception {
+        mockMvc.perform(patch("/api/v1/books/1")
+                .content("{\"num_pages\": 500}")
+                .contentType(MediaTypes.APPLICATION_MERGE_PATCH_JSON_VALUE))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.body.id", Matchers.equalTo(1)))
+            .andExpect(jsonPath("$.body.num_pages", Matchers.equalTo(500)))
+            .andExpect(jsonPath("$.body.isbn", Matchers.equalTo("9780547928210")))
+            .andExpect(jsonPath("$.body.authors", Matchers.hasSize(1)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"{\"num_pages\": 0}", "{\"title\": null}", "{\"isbn\": \"123\"}",
+        "{\"authors\": [{}]}", "{\"id\": 2}", "[]"})
+    void patchById_SuppliedFieldIsInvalid_ThrowsValidationException(String patch)
+        throws Exception {
+        mockMvc.perform(patch("/api/v1/books/1")
+                .content(patch)
+                .contentType(MediaTypes.APPLICATION_MERGE_PATCH_JSON_VALUE))
+            .andDo(print())
+            .andExpect(status().isBadRequest())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(r -> assertThatExceptionOfType(ValidationException.class));
+
+        Mockito.verifyNoInteractions(booksService);
+    }
+
     @Test
     void updateById_IdIsNotExists_ThrowsEntityNotFoundException() throws Exception {
         BookDTO book = getCorrectBookDTO();
@@ -258,6 +522,71 @@ public class BooksControllerTest extends ControllerTest {
         Mockito.verify(booksService).deleteById(id);
     }
 
+    @Test
+    void deleteAll_IdsAreSpecified_ReturnsNumberOfDeletedBooks() throws Exception {
+        mockMvc.perform(delete("/api/v1/books").param("ids", "1", "2", "999"))
+            .andDo(print())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.body", Matchers.equalTo(2)))
+            .andExpect(jsonPath("$.message", Matchers.equalTo("2 books deleted")));
+
+        Mockito.verify(booksService).deleteAllByIds(List.of(1L, 2L, 999L));
+    }
+
+    @Test
+    void deleteAll_AuthorFilterIsSpecified_ReturnsNumberOfDeletedBooks() throws Exception {
+        mockMvc.perform(delete("/api/v1/books").param("author", "TOLKIEN"))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.body", Matchers.equalTo(0)));
+
+        Mockito.verify(booksService).deleteAllByParameters("", "", "TOLKIEN");
+    }
+
+    @Test
+    void deleteAll_NoIdsAndFilters_ThrowsValidationException() throws Exception {
+        mockMvc.perform(delete("/api/v1/books").param("title", " "))
+            .andDo(print())
+            .andExpect(status().isBadRequest())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(r -> assertThatExceptionOfType(ValidationException.class));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"%", "_", "a%b"})
+    void deleteAll_FilterHasLikeWildcard_ThrowsValidationException(String filter)
+        throws Exception {
+        mockMvc.perform(delete("/api/v1/books").param("title", filter))
+            .andDo(print())
+            .andExpect(status().isBadRequest())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+        mockMvc.perform(delete("/api/v1/books").param("author", filter))
+            .andExpect(status().isBadRequest());
+
+        Mockito.verify(booksService, Mockito.never()).deleteAllByParameters(any(), any(), any());
+    }
+
+    @Test
+    void deleteAll_ISBNFilterHasNoDigits_ThrowsValidationException() throws Exception {
+        mockMvc.perform(delete("/api/v1/books").param("isbn", "%-"))
+            .andDo(print())
+            .andExpect(status().isBadRequest());
+
+        Mockito.verify(booksService, Mockito.never()).deleteAllByParameters(any(), any(), any());
+    }
+
+    @Test
+    void deleteAll_IdsAndFiltersTogether_ThrowsValidationException() throws Exception {
+        mockMvc.perform(delete("/api/v1/books").param("ids", "1").param("title", "title"))
+            .andDo(print())
+            .andExpect(status().isBadRequest())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(r -> assertThatExceptionOfType(ValidationException.class));
+
+        Mockito.verify(booksService, Mockito.never()).deleteAllByIds(any());
+    }
+
     public static Stream<BookDTO> getInvalidBooks() {
         return Stream.of(
             new BookDTO(1l, " ", "9785041079277", 1000, LocalDate.of(1873, 1, 1),
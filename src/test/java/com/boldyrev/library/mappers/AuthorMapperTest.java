@@ -21,7 +21,7 @@ public class AuthorMapperTest {
 
     public static Stream<Author> getAuthors() {
         return Stream.of(
-            new Author(null, "Name", LocalDate.of(2000, 12, 1), "Country", null),
+            new Author(null, "Name", LocalDate.of(2000, 12, 1), "Country", null, null),
             new Author()
         );
     }
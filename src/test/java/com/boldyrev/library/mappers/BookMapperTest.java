@@ -34,8 +34,8 @@ public class BookMapperTest {
 
     public static Stream<Book> getBooks() {
         return Stream.of(
-            new Book(1l, "Title", "978-14-2314561-2", 1000, LocalDate.now(), Set.of()),
-            new Book(null, null, null, null, null, Set.of(new Author()))
+            new Book(1l, "Title", "978-14-2314561-2", 1000, LocalDate.now(), Set.of(), null),
+            new Book(null, null, null, null, null, Set.of(new Author()), null)
         );
     }
 
@@ -0,0 +1,175 @@
+package com.boldyrev.library.repositories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.boldyrev.library.dto.AuthorView;
+import com.boldyrev.library.dto.BookView;
+import com.boldyrev.library.models.Book;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.Hibernate;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Sql({"/db/migration/V1__data.sql", "/db/migration/V2__trigram_search.sql",
+    "/db/migration/V4__entity_versions.sql", "/db/migration/V5__pooled_id_sequences.sql"})
+@Transactional
+@TestPropertySource("classpath:application-test.properties")
+public class BooksRepositoryTest {
+
+    private final BooksRepository booksRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public BooksRepositoryTest(BooksRepository booksRepository, JdbcTemplate jdbcTemplate) {
+        this.booksRepository = booksRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @BeforeEach
+    void fillCatalog() {
+        jdbcTemplate.update("""
+            INSERT INTO t_books (title, isbn, num_pages, publication_date)
+            SELECT 'Generated book ' || md5(i::text), lpad(i::text, 13, '0'), 100, '2000-01-01'
+            FROM generate_series(1, 5000) i
+            """);
+        jdbcTemplate.update("""
+            INSERT INTO t_authors (name, birth_date, country)
+            SELECT 'Generated author ' || md5(i::text), '1950-01-01', 'Country'
+            FROM generate_series(1, 5000) i
+            """);
+        jdbcTemplate.update("""
+            INSERT INTO t_authors_books (author_id, book_id)
+            SELECT a.author_id, b.book_id
+            FROM (SELECT author_id, row_number() OVER (ORDER BY author_id) AS n
+                  FROM t_authors
+                  WHERE name LIKE 'Generated%') a
+            JOIN (SELECT book_id, row_number() OVER (ORDER BY book_id) AS n
+                  FROM t_books
+                  WHERE title LIKE 'Generated%') b ON a.n = b.n
+            """);
+        jdbcTemplate.execute("ANALYZE t_books");
+        jdbcTemplate.execute("ANALYZE t_authors");
+        jdbcTemplate.execute("ANALYZE t_authors_books");
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSelectiveFilters")
+    void findByParameters_FilterIsSelective_UsesTrigramIndex(String title, String ISBN,
+        String authorName, String index) {
+        List<String> plan = new NamedParameterJdbcTemplate(jdbcTemplate).queryForList(
+            "EXPLAIN " + BooksRepository.SEARCH_IDS_SQL + BooksRepository.SEARCH_ORDER
+                + " LIMIT 20",
+            Map.of("title", title, "isbn", ISBN, "author", authorName), String.class);
+
+        assertThat(plan).anyMatch(line -> line.contains(index));
+    }
+
+    @Test
+    void findByParameters_FilterContainsYo_MatchesIgnoringCaseAndYo() {
+        jdbcTemplate.update("UPDATE t_books SET title = 'Ёжик в тумане' WHERE book_id = 1");
+
+        Page<Long> ids = booksRepository.findIdsByParameters("ежик", "", "",
+            PageRequest.of(0, 10));
+
+        assertThat(ids.getContent()).containsExactly(1L);
+    }
+
+    @Test
+    void findIdsByParameters_PageIsRequested_ReturnsOnlyPageOfIds() {
+        Page<Long> ids = booksRepository.findIdsByParameters("generated", "", "",
+            PageRequest.of(2, 5));
+
+        assertThat(ids.getContent()).hasSize(5);
+        assertThat(ids.getTotalElements()).isEqualTo(5000);
+    }
+
+    @Test
+    void findAllWithAuthorsByIdIn_IdsExist_ReturnsBooksWithInitializedAuthors() {
+        List<Book> books = booksRepository.findAllWithAuthorsByIdIn(List.of(1L, 11L));
+
+        assertThat(books).extracting(Book::getId).containsExactlyInAnyOrder(1L, 11L);
+        assertThat(books).allMatch(b -> Hibernate.isInitialized(b.getAuthors()));
+        assertThat(books).filteredOn(b -> b.getId() == 11L)
+            .flatExtracting(Book::getAuthors).hasSize(2);
+    }
+
+    @Test
+    void findViewsByIdIn_BooksWithAndWithoutAuthors_GroupsRowsByBook() {
+        jdbcTemplate.update("""
+            INSERT INTO t_books (book_id, title, isbn, num_pages, publication_date)
+            VALUES (1000000, 'Book without authors', '9785170902194', 100, '2000-01-01')
+            """);
+
+        List<BookView> books = booksRepository.findViewsByIdIn(
+            List.of(11L, 1L, 1000000L, Long.MAX_VALUE));
+
+        assertThat(books).extracting(BookView::id).containsExactly(1L, 11L, 1000000L);
+        assertThat(books.get(0).ISBN()).isEqualTo("9780547928210");
+        assertThat(books.get(0).version()).isZero();
+        assertThat(books.get(1).authors()).extracting(AuthorView::id).containsExactly(1L, 6L);
+        assertThat(books.get(1).authors().get(0).birthDate())
+            .isEqualTo(LocalDate.of(1892, 1, 3));
+        assertThat(books.get(2).authors()).isEmpty();
+    }
+
+    @Test
+    void estimateCountByParameters_ManyBooksMatch_ReturnsPlannerEstimate() {
+        long estimate = booksRepository.estimateCountByParameters("generated", "", "");
+
+        assertThat(estimate).isGreaterThan(1000);
+    }
+
+    @Test
+    void estimateCountByParameters_FewBooksMatch_ReturnsSmallEstimate() {
+        long estimate = booksRepository.estimateCountByParameters("братство", "", "");
+
+        assertThat(estimate).isLessThan(100);
+    }
+
+    public static Stream<Arguments> getSelectiveFilters() {
+        return Stream.of(
+            Arguments.of("братство", "", "", "t_books_title_trgm_idx"),
+            Arguments.of("", "9780547", "", "t_books_isbn_trgm_idx"),
+            Arguments.of("", "", "толкин", "t_authors_name_trgm_idx")
+        );
+    }
+
+    @Test
+    void insertAll_HibernateAllocatedIdsBefore_IdsDoNotOverlap() {
+        Book saved = booksRepository.saveAndFlush(book("9785170902194"));
+        List<Book> inserted = List.of(book("9785170902200"), book("9785170902217"));
+
+        booksRepository.insertAll(inserted);
+        Book savedAfter = booksRepository.saveAndFlush(book("9785170902187"));
+
+        assertThat(Stream.concat(Stream.of(saved, savedAfter), inserted.stream()))
+            .extracting(Book::getId)
+            .doesNotContainNull()
+            .doesNotHaveDuplicates();
+        assertThat(booksRepository.findAllById(inserted.stream().map(Book::getId).toList()))
+            .hasSize(2);
+    }
+
+    private static Book book(String ISBN) {
+        return new Book(null, "Book " + ISBN, ISBN, 100, LocalDate.of(2000, 1, 1),
+            new HashSet<>(), null);
+    }
+}
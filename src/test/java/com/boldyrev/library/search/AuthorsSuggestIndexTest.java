@@ -0,0 +1,80 @@
+package com.boldyrev.library.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.boldyrev.library.dto.AuthorView;
+import com.boldyrev.library.events.AuthorChangedEvent;
+import com.boldyrev.library.events.AuthorDeletedEvent;
+import com.boldyrev.library.models.Author;
+import com.boldyrev.library.repositories.AuthorsRepository;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class AuthorsSuggestIndexTest {
+
+    @Mock
+    private AuthorsRepository authorsRepository;
+
+    @InjectMocks
+    private AuthorsSuggestIndex suggestIndex;
+
+    @AfterEach
+    void destroy() {
+        suggestIndex.destroy();
+    }
+
+    @Test
+    void onAuthorChanged_IndexIsBeingBuilt_AppliesChangeAfterBuild() throws Exception {
+        CountDownLatch buildStarted = new CountDownLatch(1);
+        CountDownLatch authorChanged = new CountDownLatch(1);
+        when(authorsRepository.findAllByIdAfter(anyLong(), any())).thenAnswer(invocation -> {
+            buildStarted.countDown();
+            authorChanged.await(10, TimeUnit.SECONDS);
+            return List.of(author(1L, "Лев Толстой"));
+        });
+        when(authorsRepository.findAllById(any()))
+            .thenReturn(List.of(author(2L, "Лев Кассиль")));
+
+        CompletableFuture<Void> build = CompletableFuture.runAsync(suggestIndex::rebuildOnStartup);
+        buildStarted.await(10, TimeUnit.SECONDS);
+        suggestIndex.onAuthorChanged(new AuthorChangedEvent(2L, List.of()));
+        authorChanged.countDown();
+        build.get(10, TimeUnit.SECONDS);
+        suggestIndex.awaitUpdates();
+
+        assertThat(suggestIndex.suggest("лев", 10))
+            .extracting(AuthorView::id)
+            .containsExactly(2L, 1L);
+    }
+
+    @Test
+    void onAuthorDeleted_IndexIsNotBuilt_BuildDoesNotLoadChangedAuthors() throws Exception {
+        when(authorsRepository.findAllByIdAfter(anyLong(), any()))
+            .thenReturn(List.of(author(1L, "Лев Толстой")));
+
+        suggestIndex.onAuthorDeleted(new AuthorDeletedEvent(2L, List.of()));
+        suggestIndex.rebuildOnStartup();
+        suggestIndex.awaitUpdates();
+
+        assertThat(suggestIndex.suggest("лев", 10)).extracting(AuthorView::id).containsExactly(1L);
+        verify(authorsRepository, never()).findAllById(any());
+    }
+
+    private static Author author(Long id, String name) {
+        return new Author(id, name, null, null, null, null);
+    }
+}
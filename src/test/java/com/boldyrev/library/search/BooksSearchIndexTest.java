@@ -0,0 +1,131 @@
+package com.boldyrev.library.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.boldyrev.library.events.BookChangedEvent;
+import com.boldyrev.library.models.Author;
+import com.boldyrev.library.models.Book;
+import com.boldyrev.library.repositories.BooksRepository;
+import com.boldyrev.library.services.AuthorsService;
+import com.boldyrev.library.services.BooksService;
+import jakarta.persistence.EntityManagerFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@SpringBootTest(properties = "library.search.lucene.enabled=true")
+@Sql({"/db/migration/V1__data.sql", "/db/migration/V4__entity_versions.sql",
+    "/db/migration/V5__pooled_id_sequences.sql"})
+@TestPropertySource("classpath:application-test.properties")
+public class BooksSearchIndexTest {
+
+    private final BooksSearchIndex searchIndex;
+
+    private final BooksService booksService;
+
+    private final AuthorsService authorsService;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final BooksRepository booksRepository;
+
+    private final PlatformTransactionManager transactionManager;
+
+    @Autowired
+    public BooksSearchIndexTest(BooksSearchIndex searchIndex, BooksService booksService,
+        AuthorsService authorsService, EntityManagerFactory entityManagerFactory,
+        BooksRepository booksRepository, PlatformTransactionManager transactionManager) {
+        this.searchIndex = searchIndex;
+        this.booksService = booksService;
+        this.authorsService = authorsService;
+        this.entityManagerFactory = entityManagerFactory;
+        this.booksRepository = booksRepository;
+        this.transactionManager = transactionManager;
+    }
+
+    @BeforeEach
+    void rebuildIndex() {
+        entityManagerFactory.getCache().evictAll();
+        searchIndex.rebuild();
+    }
+
+    @Test
+    void search_TitleContainsTypo_FindsBook() throws Exception {
+        assertThat(search("братсво колца", "", "")).containsExactly(1L);
+    }
+
+    @Test
+    void search_AuthorNameInOtherForm_FindsAllAuthorBooks() throws Exception {
+        assertThat(search("", "", "толстого")).containsExactlyInAnyOrder(12L);
+    }
+
+    @Test
+    void search_IsbnPartIsGiven_FindsBook() throws Exception {
+        assertThat(search("", "7458", "")).containsExactly(2L);
+    }
+
+    @Test
+    void save_BookIsCommitted_BookIsSearchable() throws Exception {
+        Author author = new Author();
+        author.setId(1L);
+        Book book = new Book(null, "Незнайка на Луне", "9785170902187", 600,
+            LocalDate.of(1965, 1, 1), new HashSet<>(Set.of(author)), null);
+
+        Long id = booksService.save(book).getId();
+
+        assertThat(search("незнайка", "", "")).containsExactly(id);
+    }
+
+    @Test
+    void onBookChanged_CommitIntervalPassed_ChangeIsCommittedToDisk(@TempDir Path path)
+        throws Exception {
+        BooksSearchIndex index = new BooksSearchIndex(booksRepository, transactionManager,
+            path.toString(), false, Duration.ZERO);
+        try {
+            index.onBookChanged(new BookChangedEvent(1L));
+            index.awaitUpdates();
+
+            try (DirectoryReader reader = DirectoryReader.open(FSDirectory.open(path))) {
+                assertThat(reader.numDocs()).isEqualTo(1);
+            }
+        } finally {
+            index.destroy();
+        }
+    }
+
+    @Test
+    void deleteById_BookIsCommitted_BookIsNotSearchable() throws Exception {
+        booksService.deleteById(1L);
+
+        assertThat(search("братство", "", "")).isEmpty();
+    }
+
+    @Test
+    void updateById_AuthorIsRenamed_BooksAreSearchableByNewName() throws Exception {
+        Author author = new Author(null, "Лев Николаевич Толстой", LocalDate.of(1828, 9, 9),
+            "Россия", null, null);
+
+        authorsService.updateById(7L, author);
+
+        assertThat(search("", "", "николаевич")).containsExactly(12L);
+    }
+
+    private Iterable<Long> search(String title, String ISBN, String authorName)
+        throws Exception {
+        searchIndex.awaitUpdates();
+        return searchIndex.search(title, ISBN, authorName, PageRequest.of(0, 10));
+    }
+}
@@ -0,0 +1,77 @@
+package com.boldyrev.library.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+public class NamePrefixIndexTest {
+
+    private final NamePrefixIndex index = NamePrefixIndex.build(Map.of(
+        1L, "Джон Рональд Руэл Толкин",
+        2L, "Кристофер Толкин",
+        3L, "Лев Толстой",
+        4L, "Пётр Ершов"));
+
+    @ParameterizedTest
+    @CsvSource({"толк,2", "ТОЛ,3", "джон р,1", "петр,1", "ершов,1", "олкин,0", "' ',0"})
+    void find_PrefixIsGiven_ReturnsNamesWithWordStartingWithPrefix(String prefix, int count) {
+        assertThat(index.find(prefix, 10)).hasSize(count);
+    }
+
+    @Test
+    void find_LimitIsLessThanMatches_ReturnsLimitedNames() {
+        assertThat(index.find("т", 2)).hasSize(2);
+    }
+
+    @Test
+    void with_NameIsReplaced_FindsOnlyNewName() {
+        NamePrefixIndex updated = index.with(3L, "Алексей Толстой");
+
+        assertThat(updated.find("лев", 10)).isEmpty();
+        assertThat(updated.find("алек", 10)).containsOnlyKeys(3L);
+        assertThat(updated.find("толст", 10)).containsOnlyKeys(3L);
+        assertThat(updated.size()).isEqualTo(4);
+    }
+
+    @Test
+    void without_NamesAreRemoved_RemovedNamesAreNotFound() {
+        NamePrefixIndex updated = index.without(1L).without(2L).without(3L);
+
+        assertThat(updated.find("т", 10)).isEmpty();
+        assertThat(updated.find("е", 10)).containsOnlyKeys(4L);
+        assertThat(updated.size()).isEqualTo(1);
+    }
+
+    @Test
+    void withAll_NamesAreAdded_FindsNewNamesInOrder() {
+        NamePrefixIndex updated = index.withAll(Map.of(5L, "Алексей Толстой", 6L, "Лев Кассиль"));
+
+        assertThat(updated.find("толст", 10)).containsOnlyKeys(3L, 5L);
+        assertThat(updated.find("лев", 10).keySet()).containsExactly(6L, 3L);
+        assertThat(updated.size()).isEqualTo(6);
+    }
+
+    @Test
+    void withAll_ExistingNameIsReplaced_ReusesSlot() {
+        NamePrefixIndex updated = index.withAll(Map.of(3L, "Алексей Толстой", 5L, "Лев Кассиль"))
+            .with(3L, "Алексей Николаевич Толстой");
+
+        assertThat(updated.find("алек", 10)).containsExactly(
+            Map.entry(3L, "Алексей Николаевич Толстой"));
+        assertThat(updated.find("лев", 10)).containsOnlyKeys(5L);
+        assertThat(updated.size()).isEqualTo(5);
+    }
+
+    @Test
+    void withoutAll_SomeIdsAreMissing_RemovesOnlyExistingNames() {
+        NamePrefixIndex updated = index.withoutAll(List.of(2L, 3L, 100L));
+
+        assertThat(updated.find("толст", 10)).isEmpty();
+        assertThat(updated.find("толк", 10)).containsOnlyKeys(1L);
+        assertThat(updated.size()).isEqualTo(2);
+    }
+}
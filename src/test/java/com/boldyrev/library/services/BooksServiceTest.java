@@ -0,0 +1,286 @@
+package com.boldyrev.library.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.boldyrev.library.exceptions.EntityNotFoundException;
+import com.boldyrev.library.models.Author;
+import com.boldyrev.library.models.Book;
+import com.boldyrev.library.util.batch.BatchItemResult;
+import com.boldyrev.library.util.batch.UpsertStatus;
+import jakarta.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Sql({"/db/migration/V1__data.sql", "/db/migration/V4__entity_versions.sql",
+    "/db/migration/V5__pooled_id_sequences.sql"})
+@TestPropertySource("classpath:application-test.properties")
+public class BooksServiceTest {
+
+    private final BooksService booksService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final CacheManager cacheManager;
+
+    private final SessionFactory sessionFactory;
+
+    private final Statistics statistics;
+
+    @Autowired
+    public BooksServiceTest(BooksService booksService, JdbcTemplate jdbcTemplate,
+        CacheManager cacheManager, EntityManagerFactory entityManagerFactory) {
+        this.booksService = booksService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheManager = cacheManager;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.statistics = sessionFactory.getStatistics();
+    }
+
+    @BeforeEach
+    void clearCache() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        sessionFactory.getCache().evictAllRegions();
+        statistics.clear();
+    }
+
+    @Test
+    void findById_BookHasAuthors_LoadsBookWithAuthorsInOneStatement() {
+        Book book = booksService.findById(1L);
+
+        assertThat(book.getAuthors()).extracting(Author::getId).containsExactly(1L);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findById_BookWasReadBefore_LoadsBookFromSecondLevelCache() {
+        booksService.findById(1L);
+        statistics.clear();
+
+        Book book = booksService.findById(1L);
+
+        assertThat(book.getAuthors()).extracting(Author::getId).containsExactly(1L);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+    }
+
+    @Test
+    void updateById_BookWasReadBefore_ExecutesOnlyUpdate() {
+        Book book = booksService.findById(1L);
+        statistics.clear();
+
+        booksService.updateById(1L, new Book(null, "New title", book.getISBN(),
+            book.getNumPages(), book.getPublicationDate(), authors(1L), null));
+
+        assertThat(statistics.getPrepareStatementCount()).isOne();
+        assertThat(statistics.getEntityUpdateCount()).isOne();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void updateById_AuthorHasOtherBooks_LoadsNoAuthorBooks() {
+        Book book = booksService.findById(1L);
+        sessionFactory.getCache().evictAllRegions();
+        statistics.clear();
+
+        booksService.updateById(1L, new Book(null, "New title", book.getISBN(),
+            book.getNumPages(), book.getPublicationDate(), authors(1L), null));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getCollectionLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void deleteById_BookHasAuthors_LoadsNoCollections() {
+        booksService.deleteById(1L);
+
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void updateById_OneAuthorIsReplaced_OnlyChangedLinksAreWritten() {
+        Book book = booksService.findById(1L);
+        statistics.clear();
+
+        booksService.updateById(1L, new Book(null, book.getTitle(), book.getISBN(),
+            book.getNumPages(), book.getPublicationDate(), authors(7L), null));
+
+        assertThat(statistics.getCollectionRecreateCount()).isZero();
+        assertThat(statistics.getCollectionUpdateCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionStatistics(Author.class.getName() + ".books")
+            .getLoadCount()).isZero();
+        assertThat(jdbcTemplate.queryForList(
+            "SELECT author_id FROM t_authors_books WHERE book_id = 1", Long.class))
+            .containsExactly(7L);
+    }
+
+    @Test
+    void updateById_AuthorsAreNotChanged_LinksAreNotWritten() {
+        Book book = booksService.findById(1L);
+        statistics.clear();
+
+        booksService.updateById(1L, new Book(null, "New title", book.getISBN(),
+            book.getNumPages(), book.getPublicationDate(), authors(1L), null));
+
+        assertThat(statistics.getCollectionRecreateCount()).isZero();
+        assertThat(statistics.getCollectionUpdateCount()).isZero();
+        assertThat(booksService.findById(1L).getTitle()).isEqualTo("New title");
+    }
+
+    @Test
+    void patchById_AuthorsAreNotSupplied_LinksAreNotLoadedOrWritten() {
+        Book book = new Book();
+        book.setNumPages(500);
+        book.setAuthors(null);
+
+        booksService.patchById(1L, book);
+
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(statistics.getCollectionUpdateCount()).isZero();
+        assertThat(statistics.getEntityUpdateCount()).isOne();
+        Book patched = booksService.findById(1L);
+        assertThat(patched.getNumPages()).isEqualTo(500);
+        assertThat(patched.getTitle()).isEqualTo("Властелин колец: Братство кольца");
+        assertThat(patched.getAuthors()).extracting(Author::getId).containsExactly(1L);
+    }
+
+    @Test
+    void upsertAll_NewChangedAndSameBooks_ReportsStatusesAndEvictsCaches() {
+        Book first = booksService.findById(1L);
+        Book second = booksService.findById(2L);
+
+        List<BatchItemResult> results = booksService.upsertAll(List.of(
+            new Book(null, second.getTitle(), second.getISBN(), second.getNumPages(),
+                second.getPublicationDate(), authors(1L), null),
+            new Book(null, "New title", "978-0-547-92821-0", first.getNumPages(),
+                first.getPublicationDate(), authors(1L), null),
+            new Book(null, "Title", "9785170902194", 100, LocalDate.of(2000, 1, 1),
+                authors(1L), null),
+            new Book(null, "Title", "978-5-17-090219-4", 100, LocalDate.of(2000, 1, 1),
+                authors(1L), null)));
+
+        assertThat(results).extracting(BatchItemResult::getStatus)
+            .containsExactly(UpsertStatus.UNCHANGED, UpsertStatus.UPDATED, UpsertStatus.INSERTED,
+                null);
+        assertThat(results.get(0).getId()).isEqualTo(2L);
+        assertThat(results.get(1).getId()).isEqualTo(1L);
+        assertThat(results.get(3).getError()).contains("repeated");
+
+        Book updated = booksService.findById(1L);
+        assertThat(updated.getTitle()).isEqualTo("New title");
+        assertThat(updated.getVersion()).isEqualTo(1L);
+        assertThat(booksService.findById(2L).getVersion()).isZero();
+        assertThat(booksService.findById(results.get(2).getId()).getAuthors())
+            .extracting(Author::getId)
+            .containsExactly(1L);
+    }
+
+    @Test
+    void upsertAll_OnlyAuthorsDiffer_ReportsUpdatedAndReplacesAuthors() {
+        Book book = booksService.findById(1L);
+
+        List<BatchItemResult> results = booksService.upsertAll(List.of(
+            new Book(null, book.getTitle(), book.getISBN(), book.getNumPages(),
+                book.getPublicationDate(), authors(7L), null)));
+
+        assertThat(results.get(0).getStatus()).isEqualTo(UpsertStatus.UPDATED);
+        assertThat(booksService.findById(1L).getAuthors())
+            .extracting(Author::getId)
+            .containsExactly(7L);
+    }
+
+    @Test
+    void upsertAll_SameBookIsInsertedConcurrently_ReportsBookAsFailed() throws Exception {
+        try (Connection connection = jdbcTemplate.getDataSource().getConnection()) {
+            connection.setAutoCommit(false);
+            connection.createStatement().executeUpdate("""
+                INSERT INTO t_books (book_id, title, isbn, num_pages, publication_date, version)
+                VALUES (100000, 'Title', '9785170902194', 100, '2000-01-01', 0)
+                """);
+
+            CompletableFuture<List<BatchItemResult>> upsert = CompletableFuture.supplyAsync(
+                () -> booksService.upsertAll(List.of(new Book(null, "Title", "9785170902194", 100,
+                    LocalDate.of(2000, 1, 1), authors(1L), null))));
+            while (jdbcTemplate.queryForObject("""
+                SELECT count(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock'
+                """, Long.class) == 0) {
+                Thread.sleep(10);
+            }
+            connection.commit();
+
+            BatchItemResult result = upsert.get(10, TimeUnit.SECONDS).get(0);
+            assertThat(result.getId()).isNull();
+            assertThat(result.getError()).contains("concurrently");
+        }
+    }
+
+    @Test
+    void deleteAllByAuthorId_CoauthoredBook_DeletesBookAndEvictsCaches() {
+        booksService.findById(11L);
+
+        int deleted = booksService.deleteAllByAuthorId(6L);
+
+        assertThat(deleted).isEqualTo(1);
+        assertThatExceptionOfType(EntityNotFoundException.class)
+            .isThrownBy(() -> booksService.findById(11L));
+        assertThat(jdbcTemplate.queryForList(
+            "SELECT book_id FROM t_authors_books WHERE author_id = 1", Long.class))
+            .containsExactlyInAnyOrder(1L, 2L);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM t_authors WHERE author_id = 6", Long.class)).isOne();
+    }
+
+    @Test
+    void deleteAllByParameters_TitleFilter_DeletesOnlyMatchingBooks() {
+        int deleted = booksService.deleteAllByParameters("колесо времени", "", "");
+
+        assertThat(deleted).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForList("SELECT book_id FROM t_books", Long.class))
+            .hasSize(10)
+            .doesNotContain(7L, 8L);
+    }
+
+    @Test
+    void deleteAllByIds_SomeBooksNotExist_ReturnsNumberOfDeletedBooks() {
+        booksService.findById(3L);
+
+        int deleted = booksService.deleteAllByIds(List.of(3L, 4L, 999L));
+
+        assertThat(deleted).isEqualTo(2);
+        assertThatExceptionOfType(EntityNotFoundException.class)
+            .isThrownBy(() -> booksService.findById(3L));
+    }
+
+    @Test
+    void deleteAllByAuthorId_AuthorNotExists_ThrowsEntityNotFoundException() {
+        assertThatExceptionOfType(EntityNotFoundException.class)
+            .isThrownBy(() -> booksService.deleteAllByAuthorId(999L));
+    }
+
+    private static Set<Author> authors(Long... ids) {
+        Set<Author> authors = new HashSet<>();
+        for (Long id : List.of(ids)) {
+            Author author = new Author();
+            author.setId(id);
+            authors.add(author);
+        }
+        return authors;
+    }
+}
@@ -0,0 +1,155 @@
+package com.boldyrev.library.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(properties = {"library.snapshot.enabled=true",
+    "library.snapshot.path=target/test-snapshots", "library.snapshot.keep=2"})
+@AutoConfigureMockMvc
+@Sql({"/db/migration/V1__data.sql", "/db/migration/V4__entity_versions.sql",
+    "/db/migration/V5__pooled_id_sequences.sql"})
+@TestPropertySource("classpath:application-test.properties")
+public class CatalogSnapshotsTest {
+
+    private final CatalogSnapshots snapshots;
+
+    private final MockMvc mockMvc;
+
+    private final ObjectMapper objectMapper;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public CatalogSnapshotsTest(CatalogSnapshots snapshots, MockMvc mockMvc,
+        ObjectMapper objectMapper, JdbcTemplate jdbcTemplate) {
+        this.snapshots = snapshots;
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Test
+    void generate_Catalog_WritesGzipNdjsonWithManifest() throws Exception {
+        Snapshot snapshot = snapshots.generate();
+
+        SnapshotFile books = snapshot.file(CatalogSnapshots.BOOKS_FILE).orElseThrow().getFile();
+        Path booksPath = snapshot.getDirectory().resolve(books.getName());
+        assertThat(books.getRecords()).isEqualTo(12);
+        assertThat(books.getBytes()).isEqualTo(Files.size(booksPath));
+        assertThat(books.getSha256()).isEqualTo(sha256(booksPath));
+
+        List<String> lines = gunzip(booksPath);
+        assertThat(lines).hasSize(12);
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertThat(first.get("id").asLong()).isEqualTo(1L);
+        assertThat(first.get("isbn").asText()).isEqualTo("9780547928210");
+        assertThat(first.get("author_ids").get(0).asLong()).isEqualTo(1L);
+
+        SnapshotFile authors = snapshot.file(CatalogSnapshots.AUTHORS_FILE).orElseThrow()
+            .getFile();
+        assertThat(authors.getRecords()).isEqualTo(
+            jdbcTemplate.queryForObject("SELECT count(*) FROM t_authors", Long.class));
+        assertThat(objectMapper.readTree(
+            gunzip(snapshot.getDirectory().resolve(authors.getName())).get(0))
+            .get("birth_date").asText()).isEqualTo("1892-01-03");
+
+        assertThat(objectMapper.readValue(
+            snapshot.getDirectory().resolve(CatalogSnapshots.MANIFEST_FILE).toFile(),
+            SnapshotManifest.class).getFiles()).hasSize(2);
+    }
+
+    @Test
+    void generate_MoreSnapshotsThanKept_DeletesOldest() throws Exception {
+        snapshots.generate();
+        snapshots.generate();
+        Snapshot latest = snapshots.generate();
+
+        try (Stream<Path> directories = Files.list(latest.getDirectory().getParent())) {
+            assertThat(directories.map(path -> path.getFileName().toString()).sorted().toList())
+                .hasSize(2)
+                .last().isEqualTo(latest.getDirectory().getFileName().toString());
+        }
+        assertThat(snapshots.latest()).containsSame(latest);
+    }
+
+    @Test
+    void getLatestFile_Range_ReturnsPartialGzipContent() throws Exception {
+        Snapshot snapshot = snapshots.generate();
+        SnapshotFile books = snapshot.file(CatalogSnapshots.BOOKS_FILE).orElseThrow().getFile();
+        byte[] file = Files.readAllBytes(snapshot.getDirectory().resolve(books.getName()));
+
+        mockMvc.perform(get("/api/v1/snapshots/latest/" + books.getName())
+                .header(HttpHeaders.RANGE, "bytes=10-19"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE,
+                "bytes 10-19/" + file.length))
+            .andExpect(content().bytes(Arrays.copyOfRange(file, 10, 20)));
+
+        mockMvc.perform(get("/api/v1/snapshots/latest/" + books.getName()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+            .andExpect(content().bytes(file));
+
+        mockMvc.perform(get("/api/v1/snapshots/latest/" + books.getName())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + books.getSha256() + "\""))
+            .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/api/v1/snapshots/latest/" + books.getName())
+                .header(HttpHeaders.RANGE, "bytes=" + file.length + "-"))
+            .andExpect(status().isRequestedRangeNotSatisfiable())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + file.length));
+    }
+
+    @Test
+    void getLatest_SnapshotExists_ReturnsManifest() throws Exception {
+        snapshots.generate();
+
+        mockMvc.perform(get("/api/v1/snapshots/latest"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.body.created_at").isNotEmpty())
+            .andExpect(jsonPath("$.body.files[0].name").value(CatalogSnapshots.BOOKS_FILE));
+        mockMvc.perform(get("/api/v1/snapshots/latest/manifest.json"))
+            .andExpect(status().isNotFound());
+    }
+
+    private List<String> gunzip(Path path) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+
+    private String sha256(Path path) throws Exception {
+        return HexFormat.of().formatHex(
+            MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(path)));
+    }
+}